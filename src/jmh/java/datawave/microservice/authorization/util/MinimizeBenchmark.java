@@ -0,0 +1,82 @@
+package datawave.microservice.authorization.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import datawave.security.util.AuthorizationsMinimizer;
+
+/**
+ * Compares {@link AuthorizationsMinimizer} with {@link AuthBitSetMinimizer} on synthetic proxy chains: a user followed by servers, most of which hold all of
+ * the user's auths and more, and some of which hold a different set. Run with {@code mvn -Pjmh test-compile exec:exec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinimizeBenchmark {
+    
+    @Param({"2", "5", "10", "20", "50"})
+    public int entities;
+    
+    @Param({"50", "500"})
+    public int authsPerEntity;
+    
+    private List<Authorizations> chain;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int vocabulary = authsPerEntity * 2;
+        List<String> user = randomAuths(random, vocabulary, authsPerEntity);
+        chain = new ArrayList<>(entities);
+        chain.add(new Authorizations(user.toArray(new String[0])));
+        for (int i = 1; i < entities; i++) {
+            List<String> server;
+            if (random.nextInt(4) == 0) {
+                server = randomAuths(random, vocabulary, authsPerEntity);
+            } else {
+                server = new ArrayList<>(user);
+                server.addAll(randomAuths(random, vocabulary, authsPerEntity / 10));
+            }
+            chain.add(new Authorizations(server.toArray(new String[0])));
+        }
+        // the dictionary is shared and long lived, so it is warmed up in practice
+        AuthBitSetMinimizer.minimize(chain);
+    }
+    
+    private static List<String> randomAuths(Random random, int vocabulary, int size) {
+        List<String> auths = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            auths.add("AUTH_" + random.nextInt(vocabulary));
+        }
+        return auths;
+    }
+    
+    @Benchmark
+    public Collection<Authorizations> authorizationsMinimizer() {
+        return AuthorizationsMinimizer.minimize(chain);
+    }
+    
+    @Benchmark
+    public Collection<Authorizations> authBitSetMinimizer() {
+        return AuthBitSetMinimizer.minimize(chain);
+    }
+}
@@ -0,0 +1,86 @@
+package datawave.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import datawave.microservice.authorization.util.AuthorizationsUtil;
+import datawave.microservice.security.util.DnUtils;
+import datawave.util.time.DateHelper;
+
+/**
+ * The hot paths of this library, as the services call them, measured in operations per second. {@link RegressionGate} runs these with short, fixed settings
+ * and compares the results with the checked in baseline; see the {@code jmh} profile in the pom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotPathBenchmark {
+    
+    private String row = "20240315_7\u0000datatype\u0000a1b2c3.d4e5f6.g7h8i9\u0000FIELD_NAME\u0000field value";
+    private String csv = "alpha,beta,,gamma,delta,epsilon,zeta,eta,theta,iota";
+    private String day = "20240315";
+    private long millis = 1710505815123L;
+    private Date date = new Date(millis);
+    
+    private DnUtils dnUtils = new DnUtils(Pattern.compile("(?:^|,)\\s*OU\\s*=\\s*My Department\\s*(?:,|$)", Pattern.CASE_INSENSITIVE),
+                    Arrays.asList("iamnotaperson", "npe", "stillnotaperson"));
+    private String subjectDN = "CN=Some User, OU=People, O=Example, C=US";
+    private String issuerDN = "CN=Example CA, O=Example, C=US";
+    private String proxiedSubjectDNs = "CN=server1.example.com, OU=NPE, O=Example, C=US<CN=server2.example.com, OU=NPE, O=Example, C=US>";
+    private String proxiedIssuerDNs = "CN=Example CA, O=Example, C=US<CN=Example CA, O=Example, C=US>";
+    
+    private Collection<List<String>> userAuths = Arrays.asList(Arrays.asList("A", "B", "C", "PUBLIC", "PRIVATE"), Arrays.asList("A", "B", "PUBLIC"),
+                    Arrays.asList("A", "C", "PUBLIC", "OTHER"));
+    
+    @Benchmark
+    public String[] splitChar() {
+        return StringUtils.split(row, '\u0000');
+    }
+    
+    @Benchmark
+    public String[] splitRegex() {
+        return StringUtils.split(csv, ",");
+    }
+    
+    @Benchmark
+    public Date parseDay() {
+        return DateHelper.parse(day);
+    }
+    
+    @Benchmark
+    public String format() {
+        return DateHelper.format(date);
+    }
+    
+    @Benchmark
+    public String formatCustom() {
+        return DateHelper.formatCustom(millis, "yyyy-MM-dd HH:mm:ss.SSS");
+    }
+    
+    @Benchmark
+    public String buildNormalizedProxyDN() {
+        return dnUtils.buildNormalizedProxyDN(subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs);
+    }
+    
+    @Benchmark
+    public String buildAuthorizationString() {
+        return AuthorizationsUtil.buildAuthorizationString(userAuths);
+    }
+}
@@ -0,0 +1,190 @@
+package datawave.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs a short, fixed JMH suite, {@link HotPathBenchmark} by default, writes the results as JSON and compares them with a checked in baseline. It exits with
+ * status 1 if a benchmark's throughput fell, or the bytes it allocates per operation grew, by more than the tolerance. Run it with
+ * {@code mvn -Pjmh verify}; everything it needs is on the test classpath, so it runs offline.
+ * <p>
+ * It is configured with system properties, which the {@code jmh} profile sets from the Maven properties of the same names:
+ * <ul>
+ * <li>{@code jmh.regression.include}: the benchmarks to run</li>
+ * <li>{@code jmh.regression.result}: where to write the JMH results, as JSON</li>
+ * <li>{@code jmh.regression.baseline}: the baseline, a properties file of {@code <benchmark>.throughput} in operations per second and
+ * {@code <benchmark>.allocation} in bytes per operation</li>
+ * <li>{@code jmh.regression.tolerance}: the fraction by which throughput may fall, 0.15 by default</li>
+ * <li>{@code jmh.regression.allocation-tolerance}: the fraction by which allocation may grow, 0.05 by default, plus 16 bytes per operation so that a
+ * benchmark that allocates almost nothing does not fail on noise</li>
+ * <li>{@code jmh.regression.update}: if true, write the results to the baseline instead of comparing them</li>
+ * </ul>
+ * Throughput depends on the machine, so the baseline should be recorded with {@code -Djmh.regression.update=true} on the machine the gate runs on. Until
+ * it is, the baseline file is missing or has no entries, and the gate skips the suite with a message saying how to record it, rather than failing. Once the
+ * baseline has entries, a benchmark that is missing from it fails the gate, so a benchmark that is added later cannot pass unchecked.
+ */
+public final class RegressionGate {
+    
+    private static final String ALLOCATION_RESULT = "gc.alloc.rate.norm";
+    private static final double ALLOCATION_SLACK = 16.0;
+    
+    private static final List<String> DEFAULT_HEADER = Arrays.asList("# JMH baseline for the regression gate, see datawave.util.RegressionGate",
+                    "# <benchmark>.throughput is in operations per second, <benchmark>.allocation in bytes per operation",
+                    "# Record it on the machine the gate runs on: mvn -Pjmh verify -Djmh.regression.update=true");
+    
+    private RegressionGate() {}
+    
+    public static void main(String[] args) throws IOException, RunnerException {
+        String include = System.getProperty("jmh.regression.include", HotPathBenchmark.class.getName());
+        Path resultFile = Paths.get(System.getProperty("jmh.regression.result", "target/jmh-regression.json"));
+        Path baselineFile = Paths.get(System.getProperty("jmh.regression.baseline", "src/jmh/baseline.properties"));
+        double tolerance = Double.parseDouble(System.getProperty("jmh.regression.tolerance", "0.15"));
+        double allocationTolerance = Double.parseDouble(System.getProperty("jmh.regression.allocation-tolerance", "0.05"));
+        boolean update = Boolean.getBoolean("jmh.regression.update");
+        
+        Properties baseline = new Properties();
+        if (Files.exists(baselineFile)) {
+            try (Reader reader = Files.newBufferedReader(baselineFile, StandardCharsets.UTF_8)) {
+                baseline.load(reader);
+            }
+        }
+        if (!update && baseline.isEmpty()) {
+            System.out.println("SKIPPED: no baseline has been recorded in " + baselineFile + ", so there is nothing to compare with. Record it first, on the "
+                            + "machine the gate runs on, with: mvn -Pjmh verify -Djmh.regression.update=true");
+            return;
+        }
+        
+        Files.createDirectories(resultFile.toAbsolutePath().getParent());
+        Options options = new OptionsBuilder().include(include).mode(Mode.Throughput).timeUnit(TimeUnit.SECONDS).warmupIterations(2)
+                        .warmupTime(TimeValue.milliseconds(500)).measurementIterations(3).measurementTime(TimeValue.milliseconds(500)).forks(1)
+                        .addProfiler(GCProfiler.class).resultFormat(ResultFormatType.JSON).result(resultFile.toString()).build();
+        Collection<RunResult> results = new Runner(options).run();
+        
+        Map<String,Double> measured = new TreeMap<>();
+        for (RunResult result : results) {
+            String name = name(result.getParams());
+            measured.put(name + ".throughput", result.getPrimaryResult().getScore());
+            Result allocation = allocation(result.getSecondaryResults());
+            if (allocation != null) {
+                measured.put(name + ".allocation", allocation.getScore());
+            }
+        }
+        
+        if (update) {
+            writeBaseline(baselineFile, measured);
+            System.out.println("Wrote " + measured.size() + " results to " + baselineFile);
+            return;
+        }
+        
+        List<String> regressions = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String,Double> entry : measured.entrySet()) {
+            String key = entry.getKey();
+            double value = entry.getValue();
+            String expected = baseline.getProperty(key);
+            if (expected == null) {
+                System.out.println(String.format(Locale.ROOT, "MISSING    %s: %.1f, not in the baseline", key, value));
+                missing.add(key);
+                continue;
+            }
+            double base = Double.parseDouble(expected);
+            boolean regressed = key.endsWith(".throughput") ? value < base * (1.0 - tolerance) : value > base * (1.0 + allocationTolerance) + ALLOCATION_SLACK;
+            System.out.println(String.format(Locale.ROOT, "%-10s %s: %.1f, baseline %.1f (%+.1f%%)", regressed ? "REGRESSED" : "OK", key, value, base,
+                            (base == 0.0) ? 0.0 : (value - base) * 100.0 / base));
+            if (regressed) {
+                regressions.add(key);
+            }
+        }
+        
+        if (!missing.isEmpty()) {
+            System.out.println("No baseline for " + missing + " in " + baselineFile + "; record one with -Djmh.regression.update=true");
+        }
+        if (!regressions.isEmpty()) {
+            System.out.println("Performance regressions beyond the tolerance: " + regressions);
+        }
+        if (!missing.isEmpty() || !regressions.isEmpty()) {
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * @return the benchmark's name, with the values of its parameters, if it has any
+     */
+    private static String name(BenchmarkParams params) {
+        StringBuilder sb = new StringBuilder(params.getBenchmark());
+        for (String key : params.getParamsKeys()) {
+            sb.append('.').append(key).append('-').append(params.getParam(key));
+        }
+        return sb.toString();
+    }
+    
+    private static Result allocation(Map<String,Result> secondaryResults) {
+        for (Map.Entry<String,Result> entry : secondaryResults.entrySet()) {
+            // older versions of JMH prefix the name with a middle dot
+            if (entry.getKey().endsWith(ALLOCATION_RESULT) && entry.getKey().length() <= ALLOCATION_RESULT.length() + 1) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+    
+    private static void writeBaseline(Path baselineFile, Map<String,Double> measured) throws IOException {
+        // keep the header comment as it is, and the benchmarks that were not run this time
+        List<String> header = new ArrayList<>(DEFAULT_HEADER);
+        Properties existing = new Properties();
+        if (Files.exists(baselineFile)) {
+            List<String> lines = Files.readAllLines(baselineFile, StandardCharsets.UTF_8);
+            header.clear();
+            for (String line : lines) {
+                if (!line.startsWith("#")) {
+                    break;
+                }
+                header.add(line);
+            }
+            try (Reader reader = Files.newBufferedReader(baselineFile, StandardCharsets.UTF_8)) {
+                existing.load(reader);
+            }
+        }
+        Map<String,String> baseline = new TreeMap<>();
+        for (String key : existing.stringPropertyNames()) {
+            baseline.put(key, existing.getProperty(key));
+        }
+        for (Map.Entry<String,Double> entry : measured.entrySet()) {
+            baseline.put(entry.getKey(), String.format(Locale.ROOT, "%.1f", entry.getValue()));
+        }
+        try (Writer writer = Files.newBufferedWriter(baselineFile, StandardCharsets.UTF_8)) {
+            for (String line : header) {
+                writer.write(line + "\n");
+            }
+            for (Map.Entry<String,String> entry : baseline.entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package datawave.microservice.authorization.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import org.apache.accumulo.core.security.Authorizations;
+
+/**
+ * An immutable set of authorizations, held as a bitset of their {@link AuthDictionary} ids. Union, intersection, difference and subset checks are word at a
+ * time operations on the bitsets, so once a user's authorizations are encoded they can be compared without hashing a single string. Strings and
+ * {@link Authorizations} are only produced again at the edges, by {@link #toList()} and {@link #toAuthorizations()}.
+ * <p>
+ * Sets can only be combined with sets encoded by the same dictionary.
+ */
+public final class AuthBitSet {
+    
+    private static final long[] NO_WORDS = new long[0];
+    
+    private final AuthDictionary dictionary;
+    // no trailing zero words, so that equal sets have equal arrays
+    private final long[] words;
+    
+    private AuthBitSet(AuthDictionary dictionary, long[] words) {
+        this.dictionary = dictionary;
+        this.words = words;
+    }
+    
+    public static AuthBitSet empty(AuthDictionary dictionary) {
+        return new AuthBitSet(dictionary, NO_WORDS);
+    }
+    
+    /**
+     * Encode a set of authorizations, assigning ids to any that do not have one yet. Nulls are skipped, since no set can contain them.
+     *
+     * @param dictionary
+     *            the dictionary
+     * @param auths
+     *            the authorizations
+     * @return the set, or null if the dictionary is full and one of the authorizations does not have an id
+     */
+    public static AuthBitSet encode(AuthDictionary dictionary, Iterable<String> auths) {
+        long[] words = NO_WORDS;
+        for (String auth : auths) {
+            if (auth != null) {
+                int id = dictionary.encode(auth);
+                if (id < 0) {
+                    return null;
+                }
+                words = set(words, id);
+            }
+        }
+        return new AuthBitSet(dictionary, trim(words));
+    }
+    
+    /**
+     * Encode the authorizations that already have an id. Use this for untrusted input, e.g. requested authorizations, so that it cannot grow the dictionary;
+     * an authorization without an id cannot be in any set encoded by the dictionary.
+     *
+     * @param dictionary
+     *            the dictionary
+     * @param auths
+     *            the authorizations
+     * @return the set, or null if any of the authorizations does not have an id
+     */
+    public static AuthBitSet lookup(AuthDictionary dictionary, Iterable<String> auths) {
+        long[] words = NO_WORDS;
+        for (String auth : auths) {
+            int id = dictionary.lookup(auth);
+            if (id < 0) {
+                return null;
+            }
+            words = set(words, id);
+        }
+        return new AuthBitSet(dictionary, trim(words));
+    }
+    
+    private static long[] set(long[] words, int id) {
+        int word = id >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        words[word] |= 1L << id;
+        return words;
+    }
+    
+    public AuthDictionary getDictionary() {
+        return dictionary;
+    }
+    
+    public boolean contains(String auth) {
+        int id = dictionary.lookup(auth);
+        return id >= 0 && (id >>> 6) < words.length && (words[id >>> 6] & (1L << id)) != 0;
+    }
+    
+    /**
+     * @return true if every authorization in the other set is in this one
+     */
+    public boolean containsAll(AuthBitSet other) {
+        checkDictionary(other);
+        if (other.words.length > words.length) {
+            return false;
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            if ((other.words[i] & ~words[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * @return the authorizations in either set
+     */
+    public AuthBitSet or(AuthBitSet other) {
+        checkDictionary(other);
+        long[] longer = (words.length >= other.words.length) ? words : other.words;
+        long[] shorter = (longer == words) ? other.words : words;
+        long[] result = longer.clone();
+        for (int i = 0; i < shorter.length; i++) {
+            result[i] |= shorter[i];
+        }
+        return new AuthBitSet(dictionary, result);
+    }
+    
+    /**
+     * @return the authorizations in both sets
+     */
+    public AuthBitSet and(AuthBitSet other) {
+        checkDictionary(other);
+        long[] result = new long[Math.min(words.length, other.words.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = words[i] & other.words[i];
+        }
+        return new AuthBitSet(dictionary, trim(result));
+    }
+    
+    /**
+     * @return the authorizations in this set that are not in the other one
+     */
+    public AuthBitSet andNot(AuthBitSet other) {
+        checkDictionary(other);
+        long[] result = words.clone();
+        for (int i = 0; i < Math.min(result.length, other.words.length); i++) {
+            result[i] &= ~other.words[i];
+        }
+        return new AuthBitSet(dictionary, trim(result));
+    }
+    
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+    
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+    
+    /**
+     * Pass the id of each authorization in the set to the consumer, in ascending order.
+     */
+    public void forEachId(IntConsumer consumer) {
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                consumer.accept((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+    
+    /**
+     * @return the authorizations, in order of id
+     */
+    public List<String> toList() {
+        List<String> auths = new ArrayList<>(size());
+        forEachId(id -> auths.add(dictionary.decode(id)));
+        return auths;
+    }
+    
+    public String[] toArray() {
+        String[] auths = new String[size()];
+        int[] next = {0};
+        forEachId(id -> auths[next[0]++] = dictionary.decode(id));
+        return auths;
+    }
+    
+    public Authorizations toAuthorizations() {
+        return new Authorizations(toArray());
+    }
+    
+    private void checkDictionary(AuthBitSet other) {
+        if (other.dictionary != dictionary) {
+            throw new IllegalArgumentException("Authorization sets encoded by different dictionaries cannot be combined");
+        }
+    }
+    
+    private static long[] trim(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        return (length == words.length) ? words : (length == 0) ? NO_WORDS : Arrays.copyOf(words, length);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof AuthBitSet))
+            return false;
+        AuthBitSet other = (AuthBitSet) o;
+        return dictionary == other.dictionary && Arrays.equals(words, other.words);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+    
+    @Override
+    public String toString() {
+        return String.join(",", toList());
+    }
+}
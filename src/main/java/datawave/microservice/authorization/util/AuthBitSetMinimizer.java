@@ -0,0 +1,107 @@
+package datawave.microservice.authorization.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.security.Authorizations;
+
+import datawave.security.util.AuthorizationsMinimizer;
+
+/**
+ * Minimizes the {@link Authorizations} of a proxy chain as {@link AuthorizationsMinimizer} does: an {@link Authorizations} that is a superset of another
+ * is dropped, since a scan with both can see no more than a scan with the smaller one, and the rest are kept in their original order. If nothing is dropped,
+ * the collection itself is returned.
+ * <p>
+ * Instead of comparing sets of byte sequences pairwise, every {@link Authorizations} is encoded once as an {@link AuthBitSet} with the shared
+ * {@link AuthDictionary}. The sets are then visited from the smallest to the largest, and each is checked against only the sets kept so far, with word at a
+ * time subset tests: a set's proper subsets are all smaller than it, so if it has one, it has one among the kept sets.
+ * <p>
+ * The {@link Authorizations} that are kept are returned as they are, not rebuilt. Authorizations that are not valid UTF-8, which cannot be encoded without
+ * loss, or that the full dictionary has no id for, are minimized by {@link AuthorizationsMinimizer} instead.
+ */
+public final class AuthBitSetMinimizer {
+    
+    private AuthBitSetMinimizer() {}
+    
+    public static Collection<Authorizations> minimize(Collection<Authorizations> authorizations) {
+        int count = authorizations.size();
+        if (count <= 1) {
+            return authorizations;
+        }
+        
+        AuthDictionary dictionary = AuthDictionary.getInstance();
+        Authorizations[] auths = authorizations.toArray(new Authorizations[count]);
+        AuthBitSet[] encoded = new AuthBitSet[count];
+        // the first of any equal sets, as a LinkedHashSet of them would keep
+        Map<AuthBitSet,Integer> firsts = new HashMap<>(count * 2);
+        Integer[] candidates = new Integer[count];
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            encoded[i] = encode(dictionary, auths[i]);
+            if (encoded[i] == null) {
+                return AuthorizationsMinimizer.minimize(authorizations);
+            }
+            if (firsts.putIfAbsent(encoded[i], i) == null) {
+                candidates[distinct++] = i;
+            }
+        }
+        
+        // smallest first; sort is stable, which keeps equal sized sets in order
+        Arrays.sort(candidates, 0, distinct, (a, b) -> Integer.compare(encoded[a].size(), encoded[b].size()));
+        boolean[] kept = new boolean[count];
+        AuthBitSet[] minimal = new AuthBitSet[distinct];
+        int keptCount = 0;
+        for (int c = 0; c < distinct; c++) {
+            AuthBitSet candidate = encoded[candidates[c]];
+            boolean superset = false;
+            for (int m = 0; m < keptCount && !superset; m++) {
+                superset = candidate.containsAll(minimal[m]);
+            }
+            if (!superset) {
+                minimal[keptCount++] = candidate;
+                kept[candidates[c]] = true;
+            }
+        }
+        
+        if (keptCount == count) {
+            return authorizations;
+        }
+        LinkedHashSet<Authorizations> minimized = new LinkedHashSet<>(keptCount * 2);
+        for (int i = 0; i < count; i++) {
+            if (kept[i]) {
+                minimized.add(auths[i]);
+            }
+        }
+        return minimized;
+    }
+    
+    /**
+     * @return the auths as a bitset, or null if one of them is not valid UTF-8 or the dictionary is full
+     */
+    private static AuthBitSet encode(AuthDictionary dictionary, Authorizations authorizations) {
+        List<byte[]> auths = authorizations.getAuthorizations();
+        String[] strings = new String[auths.size()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] auth = auths.get(i);
+            strings[i] = new String(auth, StandardCharsets.UTF_8);
+            if (!isAscii(auth) && !Arrays.equals(auth, strings[i].getBytes(StandardCharsets.UTF_8))) {
+                return null;
+            }
+        }
+        return AuthBitSet.encode(dictionary, Arrays.asList(strings));
+    }
+    
+    private static boolean isAscii(byte[] auth) {
+        for (byte b : auth) {
+            if (b < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
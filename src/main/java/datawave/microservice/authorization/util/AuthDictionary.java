@@ -0,0 +1,124 @@
+package datawave.microservice.authorization.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns each authorization string a small, dense int id, so that sets of authorizations can be held as {@link AuthBitSet}s. Ids are assigned on first use
+ * and never change or get reused, so the dictionary only grows; it is meant to hold the authorizations that users actually have, which are a bounded
+ * vocabulary, and not arbitrary requested strings (use {@link #lookup(String)} for those).
+ * <p>
+ * The dictionary is bounded all the same, to {@link #DEFAULT_MAXIMUM_SIZE} ids unless given another maximum, so that neither it nor the bitsets, which are
+ * sized by the largest id they hold, can grow without limit. Once it is full {@link #encode(String)} returns -1 for an authorization without an id, and the
+ * callers fall back to comparing strings.
+ * <p>
+ * Dictionaries are thread safe. Looking up an id or a string never locks; only assigning a new id does.
+ */
+public final class AuthDictionary {
+    
+    /** The default number of ids a dictionary assigns, which keeps a bitset of them within 8KB */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1 << 16;
+    
+    private static final AuthDictionary INSTANCE = new AuthDictionary();
+    
+    private final ConcurrentHashMap<String,Integer> ids = new ConcurrentHashMap<>();
+    private final int maximumSize;
+    
+    // indexed by id; a new id is written here before it is published in ids
+    private volatile String[] auths = new String[64];
+    private int size;
+    // set once every id has been assigned, so that encoding an authorization without one no longer locks
+    private volatile boolean full;
+    
+    public AuthDictionary() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+    
+    /**
+     * @param maximumSize
+     *            the most ids the dictionary assigns
+     */
+    public AuthDictionary(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("The maximum size must not be negative: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.full = (maximumSize == 0);
+    }
+    
+    /**
+     * @return the dictionary shared by {@link AuthorizationsUtil}
+     */
+    public static AuthDictionary getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Get the id of an authorization, assigning it one if it does not have one yet.
+     *
+     * @param auth
+     *            the authorization
+     * @return the id, or -1 if the authorization does not have one and the dictionary is full
+     */
+    public int encode(String auth) {
+        Integer id = ids.get(auth);
+        if (id != null) {
+            return id;
+        }
+        return full ? -1 : assign(auth);
+    }
+    
+    private synchronized int assign(String auth) {
+        Integer id = ids.get(auth);
+        if (id != null) {
+            return id;
+        }
+        if (size == maximumSize) {
+            full = true;
+            return -1;
+        }
+        String[] current = auths;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, Math.min(size * 2, maximumSize));
+        }
+        current[size] = auth;
+        auths = current;
+        ids.put(auth, size);
+        return size++;
+    }
+    
+    /**
+     * Get the id of an authorization without assigning one.
+     *
+     * @param auth
+     *            the authorization
+     * @return the id, or -1 if the authorization has not been assigned one
+     */
+    public int lookup(String auth) {
+        Integer id = ids.get(auth);
+        return (id != null) ? id : -1;
+    }
+    
+    /**
+     * @param id
+     *            an id returned by {@link #encode(String)}
+     * @return the authorization with that id
+     */
+    public String decode(int id) {
+        return auths[id];
+    }
+    
+    /**
+     * @return the number of ids assigned
+     */
+    public int size() {
+        return ids.size();
+    }
+    
+    /**
+     * @return the most ids the dictionary assigns
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+}
@@ -0,0 +1,158 @@
+package datawave.microservice.authorization.util;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * An immutable summary of a set of authorizations that answers subset questions quickly: the sorted {@link AuthDictionary} ids of the authorizations, plus a
+ * 64 bit summary with bit {@code id % 64} set for each of them, which works as a one hash Bloom filter. A set is not a subset of another if it has a summary
+ * bit the other does not, which rejects most mismatches with one bit test; otherwise the ids are compared with a merge scan.
+ * <p>
+ * A user's authorizations never change, so {@link AuthorizationsUtil} computes each user's fingerprint once and reuses it for as long as the user is in use.
+ * Fingerprints can only be compared with fingerprints computed with the same dictionary. Authorizations that a full dictionary has no id for are kept as
+ * sorted strings; an authorization that had no id when the dictionary was full never gets one, so fingerprints still compare consistently.
+ */
+public final class AuthFingerprint {
+    
+    private static final String[] NO_AUTHS = new String[0];
+    
+    private final AuthDictionary dictionary;
+    private final int[] ids;
+    private final long summary;
+    // the authorizations without an id, sorted; almost always empty
+    private final String[] unencoded;
+    
+    private AuthFingerprint(AuthDictionary dictionary, int[] ids, long summary, String[] unencoded) {
+        this.dictionary = dictionary;
+        this.ids = ids;
+        this.summary = summary;
+        this.unencoded = unencoded;
+    }
+    
+    /**
+     * Compute the fingerprint of a set of authorizations, assigning ids to any that do not have one yet. Nulls are skipped.
+     *
+     * @param dictionary
+     *            the dictionary
+     * @param auths
+     *            the authorizations
+     * @return the fingerprint
+     */
+    public static AuthFingerprint of(AuthDictionary dictionary, Iterable<String> auths) {
+        int[] ids = new int[8];
+        int size = 0;
+        TreeSet<String> unencoded = null;
+        for (String auth : auths) {
+            if (auth != null) {
+                int id = dictionary.encode(auth);
+                if (id < 0) {
+                    if (unencoded == null) {
+                        unencoded = new TreeSet<>();
+                    }
+                    unencoded.add(auth);
+                    continue;
+                }
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = id;
+            }
+        }
+        Arrays.sort(ids, 0, size);
+        // drop duplicates
+        int distinct = 0;
+        long summary = 0L;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+                ids[distinct++] = ids[i];
+                summary |= 1L << ids[i];
+            }
+        }
+        return new AuthFingerprint(dictionary, Arrays.copyOf(ids, distinct), summary, (unencoded == null) ? NO_AUTHS : unencoded.toArray(NO_AUTHS));
+    }
+    
+    public int size() {
+        return ids.length + unencoded.length;
+    }
+    
+    /**
+     * @return true if every authorization in this set is also in the other set
+     */
+    public boolean isSubsetOf(AuthFingerprint other) {
+        if (dictionary != other.dictionary) {
+            throw new IllegalArgumentException("Cannot compare fingerprints from different dictionaries");
+        }
+        if (ids.length > other.ids.length || (summary & ~other.summary) != 0 || unencoded.length > other.unencoded.length) {
+            return false;
+        }
+        for (String auth : unencoded) {
+            if (Arrays.binarySearch(other.unencoded, auth) < 0) {
+                return false;
+            }
+        }
+        int[] otherIds = other.ids;
+        int j = 0;
+        for (int id : ids) {
+            // both are sorted, so each id only has to be looked for past the last match
+            while (j < otherIds.length && otherIds[j] < id) {
+                j++;
+            }
+            if (j == otherIds.length || otherIds[j] != id) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+    
+    /**
+     * @return true if the set contains the authorization
+     */
+    public boolean contains(String auth) {
+        int id = dictionary.lookup(auth);
+        if (id < 0) {
+            return unencoded.length > 0 && auth != null && Arrays.binarySearch(unencoded, auth) >= 0;
+        }
+        return contains(id);
+    }
+    
+    private boolean contains(int id) {
+        return (summary & (1L << id)) != 0 && Arrays.binarySearch(ids, id) >= 0;
+    }
+    
+    /**
+     * Check whether requested authorizations are all in this set. The auths are split as {@link AuthorizationsUtil#splitAuths(String)} splits them, and an
+     * auth without an id in the dictionary is in no set, so looking it up never grows the dictionary.
+     *
+     * @param requestedAuths
+     *            the comma separated auths; null or empty requests nothing
+     * @return true if the set contains all of them
+     */
+    public boolean containsRequested(String requestedAuths) {
+        if (requestedAuths == null) {
+            return true;
+        }
+        boolean[] containsAll = {true};
+        AuthorizationsUtil.forEachAuth(requestedAuths, auth -> {
+            if (containsAll[0] && !contains(auth)) {
+                containsAll[0] = false;
+            }
+        });
+        return containsAll[0];
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof AuthFingerprint))
+            return false;
+        AuthFingerprint that = (AuthFingerprint) o;
+        return dictionary == that.dictionary && summary == that.summary && Arrays.equals(ids, that.ids) && Arrays.equals(unencoded, that.unencoded);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(ids) + Arrays.hashCode(unencoded);
+    }
+}
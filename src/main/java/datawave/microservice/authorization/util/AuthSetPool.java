@@ -0,0 +1,103 @@
+package datawave.microservice.authorization.util;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.apache.accumulo.core.security.Authorizations;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import datawave.security.authorization.DatawaveUser;
+import datawave.util.metrics.Counter;
+import datawave.util.metrics.HotPathMetrics;
+
+/**
+ * Hands out one shared, immutable instance for each distinct set of auths and each distinct {@link Authorizations}. Many users share the same few auth sets,
+ * so holding one copy of each instead of one per user per request saves heap, and callers can compare canonical instances by identity before falling back to
+ * {@code equals}.
+ * <p>
+ * The pool holds its instances weakly, so an auth set nobody uses any more is collected. Pools are thread safe.
+ * <p>
+ * {@link AuthorizationsUtil} builds its {@link Authorizations}, and the merged auth sets of {@link AuthorizationsUtil#mergeAuths(DatawaveUser, Set)} and
+ * {@link AuthorizationsUtil#mergeUsers(DatawaveUser...)}, through the shared pool when the JVM is started with
+ * {@code -Ddatawave.common-utils.auth-pool.enabled=true}. The setting is read once, when this class is loaded.
+ */
+public final class AuthSetPool {
+    
+    public static final String ENABLED_PROPERTY = "datawave.common-utils.auth-pool.enabled";
+    
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+    
+    private static final AuthSetPool INSTANCE = new AuthSetPool();
+    
+    private static final Counter HITS = HotPathMetrics.counter("datawave.authorizations.pool.hits");
+    private static final Counter MISSES = HotPathMetrics.counter("datawave.authorizations.pool.misses");
+    
+    private final Interner<ImmutableSet<String>> sets = Interners.newWeakInterner();
+    private final Interner<Authorizations> authorizations = Interners.newWeakInterner();
+    // keyed by the identity of the canonical sets
+    private final Cache<Set<String>,Authorizations> authorizationsBySet = CacheBuilder.newBuilder().weakKeys().build();
+    
+    /**
+     * @return the pool shared by {@link AuthorizationsUtil}
+     */
+    public static AuthSetPool getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Get the canonical instance of a set of auths.
+     *
+     * @param auths
+     *            the auths; duplicates are ignored
+     * @return an immutable set of the auths, the same instance for every equal set
+     */
+    public Set<String> canonical(Collection<String> auths) {
+        ImmutableSet<String> set = ImmutableSet.copyOf(auths);
+        ImmutableSet<String> canonical = sets.intern(set);
+        record(canonical, set);
+        return canonical;
+    }
+    
+    /**
+     * Get the canonical instance of an {@link Authorizations}.
+     *
+     * @param auths
+     *            the authorizations
+     * @return an equal authorizations, the same instance for every equal one
+     */
+    public Authorizations canonical(Authorizations auths) {
+        Authorizations canonical = authorizations.intern(auths);
+        record(canonical, auths);
+        return canonical;
+    }
+    
+    /**
+     * Get the canonical {@link Authorizations} of a set of auths. Once a set has been seen, this builds nothing but the set to look it up with.
+     *
+     * @param auths
+     *            the auths; duplicates are ignored
+     * @return the authorizations, the same instance for every equal set of auths
+     */
+    public Authorizations toAuthorizations(Collection<String> auths) {
+        Set<String> set = canonical(auths);
+        Authorizations canonical = authorizationsBySet.getIfPresent(set);
+        if (canonical == null) {
+            canonical = authorizations.intern(new Authorizations(set.toArray(new String[0])));
+            authorizationsBySet.put(set, canonical);
+        }
+        return canonical;
+    }
+    
+    private static void record(Object canonical, Object candidate) {
+        if (canonical == candidate) {
+            MISSES.increment();
+        } else {
+            HITS.increment();
+        }
+    }
+}
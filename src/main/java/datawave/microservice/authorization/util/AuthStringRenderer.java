@@ -0,0 +1,202 @@
+package datawave.microservice.authorization.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.accumulo.core.security.Authorizations;
+
+/**
+ * Renders the auths of several users as one comma separated string, exactly as {@link Authorizations#toString()} would render an {@link Authorizations} of
+ * all of them, without encoding each auth to bytes or building the {@link Authorizations}.
+ * <p>
+ * {@link Authorizations#toString()} lists the auths in the iteration order of the {@link java.util.HashSet} it keeps them in, so that is the order reproduced
+ * here: the set's final capacity follows from the number of distinct auths, each auth's bucket from the hash of its UTF-8 bytes, and auths that share a
+ * bucket keep the order they were added in. Where that order cannot be reproduced cheaply, i.e. an auth outside the basic multilingual plane, a bucket big
+ * enough to be turned into a tree, or input that {@link Authorizations} would reject, {@link #render(Collection)} returns null and the caller builds the
+ * {@link Authorizations} instead.
+ * <p>
+ * That order is an implementation detail of both {@link java.util.HashMap} and Accumulo's {@code ArrayByteSequence}, either of which could change it. So
+ * when this class is loaded it renders a fixed set of samples, covering resizes, shared buckets and multi-byte characters, and compares them with what an
+ * {@link Authorizations} renders. If any of them differ, {@link #render(Collection)} always returns null.
+ */
+final class AuthStringRenderer {
+    
+    // from java.util.HashMap
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final int TREEIFY_THRESHOLD = 8;
+    
+    private static final boolean MATCHES_AUTHORIZATIONS = matchesAuthorizations();
+    
+    private AuthStringRenderer() {}
+    
+    /**
+     * @return true if this renders the samples exactly as {@link Authorizations} does, and so is used at all
+     */
+    static boolean isEnabled() {
+        return MATCHES_AUTHORIZATIONS;
+    }
+    
+    /**
+     * @return the rendered auths, or null if they have to be rendered by an {@link Authorizations}
+     */
+    static String render(Collection<? extends Collection<String>> userAuths) {
+        return MATCHES_AUTHORIZATIONS ? renderUnchecked(userAuths) : null;
+    }
+    
+    private static boolean matchesAuthorizations() {
+        List<List<String>> samples = new ArrayList<>();
+        // sizes on either side of the resizes
+        for (int size : new int[] {1, 12, 13, 24, 25, 100, 1000}) {
+            List<String> auths = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                auths.add("AUTH_" + i + ((i % 3 == 0) ? "\u00e9" : "") + ((i % 5 == 0) ? "\u4e2d" : ""));
+            }
+            samples.add(auths);
+        }
+        // "Aa" and "BB" have the same hash, so these share a bucket
+        samples.add(Arrays.asList("AaAa", "AaBB", "BBAa", "BBBB", "X"));
+        try {
+            for (List<String> sample : samples) {
+                List<byte[]> bytes = new ArrayList<>(sample.size());
+                for (String auth : sample) {
+                    bytes.add(auth.getBytes(StandardCharsets.UTF_8));
+                }
+                if (!new Authorizations(bytes).toString().equals(renderUnchecked(Collections.singletonList(sample)))) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+    
+    private static String renderUnchecked(Collection<? extends Collection<String>> userAuths) {
+        int expectedSize = 0;
+        for (Collection<String> auths : userAuths) {
+            if (auths == null) {
+                return null;
+            }
+            expectedSize = Math.max(expectedSize, auths.size());
+        }
+        
+        // the distinct auths, in the order they are first added
+        HashSet<String> seen = new HashSet<>(expectedSize * 2);
+        List<String> distinct = new ArrayList<>(expectedSize * 2);
+        int length = 0;
+        for (Collection<String> auths : userAuths) {
+            for (String auth : auths) {
+                if (auth == null || auth.isEmpty()) {
+                    return null;
+                }
+                if (seen.add(auth)) {
+                    if (hasSurrogate(auth)) {
+                        return null;
+                    }
+                    distinct.add(auth);
+                    length += auth.length() + 1;
+                }
+            }
+        }
+        int size = distinct.size();
+        if (size == 0) {
+            return "";
+        }
+        
+        int[] hashes = new int[size];
+        for (int i = 0; i < size; i++) {
+            int hash = utf8Hash(distinct.get(i));
+            // as java.util.HashMap.hash spreads it
+            hashes[i] = hash ^ (hash >>> 16);
+        }
+        
+        int capacity = capacity(hashes);
+        if (capacity < 0) {
+            return null;
+        }
+        
+        // a stable counting sort of the auths by bucket
+        int mask = capacity - 1;
+        int[] starts = new int[capacity + 1];
+        for (int hash : hashes) {
+            starts[(hash & mask) + 1]++;
+        }
+        for (int bucket = 0; bucket < capacity; bucket++) {
+            starts[bucket + 1] += starts[bucket];
+        }
+        String[] ordered = new String[size];
+        for (int i = 0; i < size; i++) {
+            ordered[starts[hashes[i] & mask]++] = distinct.get(i);
+        }
+        
+        StringBuilder sb = new StringBuilder(length - 1);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(ordered[i]);
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Replay the growth of a {@link java.util.HashSet} as the auths are added in order.
+     *
+     * @return the final capacity, or -1 if a bucket would have been turned into a tree, which changes the iteration order
+     */
+    private static int capacity(int[] hashes) {
+        int capacity = DEFAULT_INITIAL_CAPACITY;
+        int[] counts = new int[capacity];
+        for (int i = 0; i < hashes.length; i++) {
+            int bucket = hashes[i] & (capacity - 1);
+            if (counts[bucket] >= TREEIFY_THRESHOLD) {
+                return -1;
+            }
+            counts[bucket]++;
+            // HashMap resizes once its size passes three quarters of its capacity
+            if (i + 1 > capacity / 4 * 3) {
+                capacity *= 2;
+                counts = new int[capacity];
+                for (int j = 0; j <= i; j++) {
+                    counts[hashes[j] & (capacity - 1)]++;
+                }
+            }
+        }
+        return capacity;
+    }
+    
+    private static boolean hasSurrogate(String auth) {
+        for (int i = 0; i < auth.length(); i++) {
+            if (Character.isSurrogate(auth.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * @return the hash that {@link Authorizations} computes for the UTF-8 bytes of an auth without surrogates
+     */
+    private static int utf8Hash(String auth) {
+        int hash = 1;
+        for (int i = 0; i < auth.length(); i++) {
+            char c = auth.charAt(i);
+            if (c < 0x80) {
+                hash = 31 * hash + c;
+            } else if (c < 0x800) {
+                hash = 31 * hash + (byte) (0xC0 | (c >> 6));
+                hash = 31 * hash + (byte) (0x80 | (c & 0x3F));
+            } else {
+                hash = 31 * hash + (byte) (0xE0 | (c >> 12));
+                hash = 31 * hash + (byte) (0x80 | ((c >> 6) & 0x3F));
+                hash = 31 * hash + (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return hash;
+    }
+}
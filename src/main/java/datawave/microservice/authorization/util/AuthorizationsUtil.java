@@ -6,29 +6,26 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.commons.lang3.StringUtils;
 
-import com.google.common.base.Splitter;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Multimap;
+import com.google.common.base.CharMatcher;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
 import datawave.accumulo.util.security.UserAuthFunctions;
 import datawave.security.authorization.AuthorizationException;
 import datawave.security.authorization.DatawaveUser;
 import datawave.security.authorization.ProxiedUserDetails;
-import datawave.security.authorization.SubjectIssuerDNPair;
 import datawave.security.util.AuthorizationsMinimizer;
+import datawave.util.metrics.HotPathMetrics;
+import datawave.util.metrics.Timer;
 
 /**
  * Several of these methods refer to different types of datawaveUserDetailss:
@@ -40,38 +37,140 @@ import datawave.security.util.AuthorizationsMinimizer;
  */
 public class AuthorizationsUtil {
     
+    private static final Timer MERGE_TIMER = HotPathMetrics.timer("datawave.authorizations.merge");
+    private static final Timer DOWNGRADE_TIMER = HotPathMetrics.timer("datawave.authorizations.downgrade");
+    private static final Timer DOWNGRADE_USER_TIMER = HotPathMetrics.timer("datawave.authorizations.downgrade.user");
+    private static final Timer BUILD_STRING_TIMER = HotPathMetrics.timer("datawave.authorizations.build.string");
+    private static final Timer MINIMIZE_TIMER = HotPathMetrics.timer("datawave.authorizations.minimize");
+    
+    // the same whitespace that Splitter.trimResults() trims
+    private static final CharMatcher WHITESPACE = CharMatcher.whitespace();
+    
+    private static final int MAX_FINGERPRINTED_USERS = 10000;
+    
+    // keyed by the identity of DatawaveUser.getAuths(), which is immutable
+    private static final Cache<Collection<String>,AuthFingerprint> USER_FINGERPRINTS = CacheBuilder.newBuilder().weakKeys().maximumSize(MAX_FINGERPRINTED_USERS)
+                    .build();
+    
     public static Authorizations union(Iterable<byte[]> authorizations1, Iterable<byte[]> authorizations2) {
-        LinkedList<byte[]> aggregatedAuthorizations = Lists.newLinkedList();
-        addTo(aggregatedAuthorizations, authorizations1);
-        addTo(aggregatedAuthorizations, authorizations2);
-        return new Authorizations(aggregatedAuthorizations);
+        DistinctAuthList aggregatedAuthorizations = new DistinctAuthList(sizeOf(authorizations1) + sizeOf(authorizations2));
+        aggregatedAuthorizations.addAll(authorizations1);
+        aggregatedAuthorizations.addAll(authorizations2);
+        return pooled(new Authorizations(aggregatedAuthorizations));
     }
     
-    protected static void addTo(LinkedList<byte[]> aggregatedAuthorizations, Iterable<byte[]> authsToAdd) {
-        for (byte[] auth : authsToAdd) {
-            aggregatedAuthorizations.add(auth);
+    /**
+     * Union any number of authorizations, e.g. those of every entity in a proxy chain, in one pass. Duplicates are dropped before the {@link Authorizations} is
+     * built, so an authorization held by every entity is only copied once.
+     *
+     * @param authorizations
+     *            the authorizations to union
+     * @return the union
+     */
+    public static Authorizations unionAll(Collection<? extends Iterable<byte[]>> authorizations) {
+        int expectedSize = 0;
+        for (Iterable<byte[]> auths : authorizations) {
+            expectedSize = Math.max(expectedSize, sizeOf(auths));
         }
+        // the sets in a chain mostly overlap, so the largest one is a better guess than the sum
+        DistinctAuthList aggregatedAuthorizations = new DistinctAuthList(expectedSize * 2);
+        for (Iterable<byte[]> auths : authorizations) {
+            aggregatedAuthorizations.addAll(auths);
+        }
+        return pooled(new Authorizations(aggregatedAuthorizations));
+    }
+    
+    private static int sizeOf(Iterable<byte[]> auths) {
+        if (auths instanceof Collection) {
+            return ((Collection<?>) auths).size();
+        }
+        return (auths instanceof Authorizations) ? ((Authorizations) auths).size() : 0;
     }
     
+    /**
+     * Reduce each user's auths to the requested ones. The collections are encoded on every call, since the caller may change them between calls.
+     *
+     * @param requestedAuths
+     *            the comma separated auths; null or empty for all of them
+     * @param userAuths
+     *            the auths of each user
+     * @return the requested auths that each user has
+     * @throws IllegalArgumentException
+     *             if a requested auth is one that none of the users has
+     */
     public static Set<Authorizations> mergeAuthorizations(String requestedAuths, Collection<? extends Collection<String>> userAuths) {
-        HashSet<String> requested = null;
+        long start = MERGE_TIMER.start();
+        try {
+            Set<Authorizations> mergedAuths = mergeAuthorizationsUntimed(requestedAuths, userAuths);
+            MERGE_TIMER.stop(start);
+            return mergedAuths;
+        } catch (RuntimeException e) {
+            MERGE_TIMER.stopFailed(start);
+            throw e;
+        }
+    }
+    
+    private static Set<Authorizations> mergeAuthorizationsUntimed(String requestedAuths, Collection<? extends Collection<String>> userAuths) {
+        List<String> requested = null;
         if (!StringUtils.isEmpty(requestedAuths)) {
-            requested = new HashSet<>(splitAuths(requestedAuths));
+            requested = splitAuths(requestedAuths);
         }
         
         if (null == userAuths)
             return Collections.singleton(new Authorizations());
         
         HashSet<Authorizations> mergedAuths = new HashSet<>();
-        HashSet<String> missingAuths = (requested == null) ? new HashSet<>() : new HashSet<>(requested);
+        if (null == requested) {
+            for (Collection<String> auths : userAuths) {
+                mergedAuths.add(newAuthorizations(auths));
+            }
+            return mergedAuths;
+        }
+        
+        // encode the user's auths first, so that a requested auth without an id is one that none of them has
+        AuthDictionary dictionary = AuthDictionary.getInstance();
+        List<AuthBitSet> encodedAuths = new ArrayList<>(userAuths.size());
         for (Collection<String> auths : userAuths) {
-            if (null != requested) {
-                missingAuths.removeAll(auths);
-                auths = new HashSet<>(auths);
-                auths.retainAll(requested);
+            AuthBitSet encoded = AuthBitSet.encode(dictionary, auths);
+            if (null == encoded) {
+                // the dictionary is full
+                return mergeAuthorizationSets(requested, userAuths);
             }
+            encodedAuths.add(encoded);
+        }
+        AuthBitSet requestedBits = AuthBitSet.lookup(dictionary, requested);
+        if (null == requestedBits) {
+            // reports the missing auths
+            return mergeAuthorizationSets(requested, userAuths);
+        }
+        
+        AuthBitSet missingAuths = requestedBits;
+        for (AuthBitSet auths : encodedAuths) {
+            missingAuths = missingAuths.andNot(auths);
+            mergedAuths.add(pooled(auths.and(requestedBits).toAuthorizations()));
+        }
+        
+        if (!missingAuths.isEmpty()) {
+            // reports the missing auths
+            return mergeAuthorizationSets(requested, userAuths);
+        }
+        return mergedAuths;
+    }
+    
+    /**
+     * The same merge as {@link #mergeAuthorizations(String, Collection)}, done with sets of strings. This is used to report requested auths that the user does
+     * not have, so that the message lists them exactly as it always has, and if the dictionary is full.
+     */
+    private static Set<Authorizations> mergeAuthorizationSets(List<String> requestedAuths, Collection<? extends Collection<String>> userAuths) {
+        HashSet<String> requested = new HashSet<>(requestedAuths);
+        HashSet<Authorizations> mergedAuths = new HashSet<>();
+        HashSet<String> missingAuths = new HashSet<>(requested);
+        for (Collection<String> auths : userAuths) {
+            missingAuths.removeAll(auths);
+            auths = new HashSet<>(auths);
+            auths.retainAll(requested);
             
-            mergedAuths.add(new Authorizations(auths.toArray(new String[auths.size()])));
+            mergedAuths.add(newAuthorizations(auths));
         }
         
         if (!missingAuths.isEmpty()) {
@@ -81,9 +180,37 @@ public class AuthorizationsUtil {
         return mergedAuths;
     }
     
+    /**
+     * Build the {@link Authorizations} of a set of auths, taking the shared instance from the {@link AuthSetPool} when it is enabled.
+     */
+    private static Authorizations newAuthorizations(Collection<String> auths) {
+        if (AuthSetPool.ENABLED) {
+            return AuthSetPool.getInstance().toAuthorizations(auths);
+        }
+        return new Authorizations(auths.toArray(new String[auths.size()]));
+    }
+    
+    private static Authorizations pooled(Authorizations auths) {
+        return AuthSetPool.ENABLED ? AuthSetPool.getInstance().canonical(auths) : auths;
+    }
+    
+    /**
+     * @return the shared instance of a merged set of auths from the {@link AuthSetPool} when it is enabled, otherwise the set itself
+     */
+    static Collection<String> pooled(Collection<String> auths) {
+        return AuthSetPool.ENABLED ? AuthSetPool.getInstance().canonical(auths) : auths;
+    }
+    
     public static DatawaveUser mergeAuths(DatawaveUser user, Set<String> auths) {
-        return new DatawaveUser(user.getDn(), user.getUserType(), user.getEmail(), Sets.union(new HashSet<>(user.getAuths()), auths), user.getRoles(),
-                        user.getRoleToAuthMapping(), user.getCreationTime(), user.getExpirationTime());
+        Collection<String> mergedAuths;
+        if (AuthSetPool.ENABLED) {
+            // the pool copies the auths into an immutable set anyway, so there is no need for a HashSet first
+            mergedAuths = pooled(ImmutableSet.<String> builder().addAll(user.getAuths()).addAll(auths).build());
+        } else {
+            mergedAuths = Sets.union(new HashSet<>(user.getAuths()), auths);
+        }
+        return new DatawaveUser(user.getDn(), user.getUserType(), user.getEmail(), mergedAuths, user.getRoles(), user.getRoleToAuthMapping(),
+                        user.getCreationTime(), user.getExpirationTime());
     }
     
     /**
@@ -111,6 +238,37 @@ public class AuthorizationsUtil {
      */
     public static <T extends ProxiedUserDetails> Set<Authorizations> getDowngradedAuthorizations(String requestedAuths, T overallUserDetails,
                     T queryUserDetails) throws AuthorizationException {
+        long start = DOWNGRADE_TIMER.start();
+        try {
+            Set<Authorizations> downgradedAuths = getDowngradedAuthorizationsUntimed(requestedAuths, overallUserDetails, queryUserDetails);
+            DOWNGRADE_TIMER.stop(start);
+            return downgradedAuths;
+        } catch (AuthorizationException | RuntimeException e) {
+            DOWNGRADE_TIMER.stopFailed(start);
+            throw e;
+        }
+    }
+    
+    /**
+     * The same as {@link #getDowngradedAuthorizations(String, ProxiedUserDetails, ProxiedUserDetails)}, answered from the given cache when the same auths
+     * were requested for the same users before.
+     *
+     * @param cache
+     *            the cache, or null to always build the authorizations
+     * @return A set of {@link Authorizations}, one per entity represented in {@code queryUserDetails}; unmodifiable if it came through the cache
+     * @throws AuthorizationException
+     *             if the requested auths is not a subset of the {@code overallUserDetails} users's auths
+     */
+    public static <T extends ProxiedUserDetails> Set<Authorizations> getDowngradedAuthorizations(String requestedAuths, T overallUserDetails,
+                    T queryUserDetails, DowngradedAuthorizationsCache cache) throws AuthorizationException {
+        if (cache == null) {
+            return getDowngradedAuthorizations(requestedAuths, overallUserDetails, queryUserDetails);
+        }
+        return cache.getDowngradedAuthorizations(requestedAuths, overallUserDetails, queryUserDetails);
+    }
+    
+    private static <T extends ProxiedUserDetails> Set<Authorizations> getDowngradedAuthorizationsUntimed(String requestedAuths, T overallUserDetails,
+                    T queryUserDetails) throws AuthorizationException {
         if (overallUserDetails == null || queryUserDetails == null) {
             return Collections.singleton(new Authorizations());
         }
@@ -141,15 +299,24 @@ public class AuthorizationsUtil {
      */
     public static <T extends ProxiedUserDetails> String downgradeUserAuths(String requestedAuths, T overallUserDetails, T queryUserDetails)
                     throws AuthorizationException {
-        if (StringUtils.isEmpty(requestedAuths)) {
-            throw new IllegalArgumentException("Requested authorizations must not be empty");
+        long start = DOWNGRADE_USER_TIMER.start();
+        try {
+            if (StringUtils.isEmpty(requestedAuths)) {
+                throw new IllegalArgumentException("Requested authorizations must not be empty");
+            }
+            
+            String downgradedAuths = getUserAuthorizations(requestedAuths, overallUserDetails, queryUserDetails).toString();
+            DOWNGRADE_USER_TIMER.stop(start);
+            return downgradedAuths;
+        } catch (AuthorizationException | RuntimeException e) {
+            DOWNGRADE_USER_TIMER.stopFailed(start);
+            throw e;
         }
-        
-        return getUserAuthorizations(requestedAuths, overallUserDetails, queryUserDetails).toString();
     }
     
     /**
-     * Common functionality for the downgrading of user authorizations above.
+     * Common functionality for the downgrading of user authorizations above. {@link UserAuthFunctions#validateRequestedAuthorizations(String, DatawaveUser)}
+     * is only called when the requested auths are not all among the primary user's auths, so a request for auths the user holds is not passed to it.
      */
     protected static <T extends ProxiedUserDetails> Authorizations getUserAuthorizations(String requestedAuths, T overallUserDetails, T queryUserDetails)
                     throws AuthorizationException {
@@ -158,19 +325,71 @@ public class AuthorizationsUtil {
         final DatawaveUser queryUser = queryUserDetails.getPrimaryUser();
         
         // validate that the query user is actually a subset of the primary user
-        if (!primaryUser.getAuths().containsAll(queryUser.getAuths())) {
+        AuthFingerprint primaryAuths = fingerprint(primaryUser);
+        if (!fingerprint(queryUser).isSubsetOf(primaryAuths)) {
             throw new IllegalArgumentException("System Error.  Unexpected authorization mismatch.  Please try again.");
         }
         
-        // validate that the requestedAuths do not include anything outside of the datawaveUserDetails's auths
-        uaf.validateRequestedAuthorizations(requestedAuths, primaryUser);
+        // validate that the requestedAuths do not include anything outside of the datawaveUserDetails's auths. Auths that the fingerprint shows the
+        // user holds pass that validation, so it only runs, with its own exception and message, when one of them may not be held.
+        if (!primaryAuths.containsRequested(requestedAuths)) {
+            uaf.validateRequestedAuthorizations(requestedAuths, primaryUser);
+        }
         
         // now return auths that are a reduced by what the query can handle.
         return uaf.getRequestedAuthorizations(requestedAuths, queryUser, false);
     }
     
+    /**
+     * Get the {@link AuthFingerprint} of a user's auths, computed with the shared {@link AuthDictionary}. A user's auths never change, so the fingerprint is
+     * cached against the auths collection itself (by identity) for as long as the user is in use.
+     */
+    static AuthFingerprint fingerprint(DatawaveUser user) {
+        Collection<String> auths = user.getAuths();
+        AuthFingerprint fingerprint = USER_FINGERPRINTS.getIfPresent(auths);
+        if (fingerprint == null) {
+            fingerprint = AuthFingerprint.of(AuthDictionary.getInstance(), auths);
+            USER_FINGERPRINTS.put(auths, fingerprint);
+        }
+        return fingerprint;
+    }
+    
     public static List<String> splitAuths(String requestedAuths) {
-        return Arrays.asList(Iterables.toArray(Splitter.on(',').omitEmptyStrings().trimResults().split(requestedAuths), String.class));
+        List<String> auths = new ArrayList<>();
+        forEachAuth(requestedAuths, auths::add);
+        return auths;
+    }
+    
+    /**
+     * Split a comma separated list of auths in one pass, passing each auth to the consumer as it is found, e.g. to add it to a set or to encode it. Auths are
+     * trimmed and empty ones are skipped, exactly as {@link #splitAuths(String)} does, and nothing but the auths themselves is allocated.
+     *
+     * @param requestedAuths
+     *            the comma separated auths
+     * @param consumer
+     *            receives each auth, in order
+     */
+    public static void forEachAuth(String requestedAuths, Consumer<String> consumer) {
+        int length = requestedAuths.length();
+        int start = 0;
+        while (start <= length) {
+            int end = requestedAuths.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int authStart = start;
+            int authEnd = end;
+            while (authStart < authEnd && WHITESPACE.matches(requestedAuths.charAt(authStart))) {
+                authStart++;
+            }
+            while (authEnd > authStart && WHITESPACE.matches(requestedAuths.charAt(authEnd - 1))) {
+                authEnd--;
+            }
+            if (authStart < authEnd) {
+                consumer.accept(requestedAuths.substring(authStart, authEnd));
+            }
+            start = end + 1;
+        }
     }
     
     public static Set<Authorizations> buildAuthorizations(Collection<? extends Collection<String>> userAuths) {
@@ -180,7 +399,7 @@ public class AuthorizationsUtil {
         
         HashSet<Authorizations> auths = Sets.newHashSet();
         for (Collection<String> userAuth : userAuths) {
-            auths.add(new Authorizations(userAuth.toArray(new String[userAuth.size()])));
+            auths.add(newAuthorizations(userAuth));
         }
         
         return auths;
@@ -191,6 +410,19 @@ public class AuthorizationsUtil {
             return "";
         }
         
+        long start = BUILD_STRING_TIMER.start();
+        String authString = AuthStringRenderer.render(userAuths);
+        if (authString == null) {
+            authString = buildAuthorizationStringWithAuthorizations(userAuths);
+        }
+        BUILD_STRING_TIMER.stop(start);
+        return authString;
+    }
+    
+    /**
+     * Render the auths with an {@link Authorizations}, for the input that {@link AuthStringRenderer} cannot render itself.
+     */
+    private static String buildAuthorizationStringWithAuthorizations(Collection<? extends Collection<String>> userAuths) {
         HashSet<byte[]> b = new HashSet<>();
         for (Collection<String> userAuth : userAuths) {
             for (String string : userAuth) {
@@ -216,80 +448,74 @@ public class AuthorizationsUtil {
         return auths;
     }
     
+    /**
+     * Drop any {@link Authorizations} that is a superset of another, as {@link AuthorizationsMinimizer} does, with {@link AuthBitSetMinimizer}.
+     *
+     * @param authorizations
+     *            the authorizations, e.g. of every entity in a proxy chain
+     * @return the minimal authorizations, in their original order, or {@code authorizations} itself if none were dropped
+     */
     public static Collection<Authorizations> minimize(Collection<Authorizations> authorizations) {
-        return AuthorizationsMinimizer.minimize(authorizations);
+        long start = MINIMIZE_TIMER.start();
+        try {
+            Collection<Authorizations> minimized = AuthBitSetMinimizer.minimize(authorizations);
+            MINIMIZE_TIMER.stop(start);
+            return minimized;
+        } catch (RuntimeException e) {
+            MINIMIZE_TIMER.stopFailed(start);
+            throw e;
+        }
     }
     
     public static Collection<? extends Collection<String>> prepareAuthsForMerge(Authorizations authorizations) {
-        return Collections.singleton(new HashSet<>(Arrays.asList(authorizations.toString().split(","))));
+        List<byte[]> auths = authorizations.getAuthorizations();
+        if (auths.isEmpty()) {
+            // what splitting the empty string has always produced
+            return Collections.singleton(new HashSet<>(Collections.singleton("")));
+        }
+        
+        HashSet<String> authSet = Sets.newHashSetWithExpectedSize(auths.size());
+        for (byte[] auth : auths) {
+            String authString = new String(auth, StandardCharsets.UTF_8);
+            if (authString.indexOf(',') >= 0) {
+                // an auth that the string form would have split apart
+                return Collections.singleton(new HashSet<>(Arrays.asList(authorizations.toString().split(","))));
+            }
+            authSet.add(authString);
+        }
+        return Collections.singleton(authSet);
     }
     
     /**
-     * Merge datawaveUserDetailss. This can be used to create a composite view of a datawaveUserDetails when including remote systems
+     * Merge datawaveUserDetailss. This can be used to create a composite view of a datawaveUserDetails when including remote systems. All of the details are
+     * merged in one pass, see {@link ProxiedUserDetailsMerger}.
      *
      * @param proxiedUserDetails
      * @return The merge datawaveUserDetails
      */
     public static <T extends ProxiedUserDetails> T mergeProxiedUserDetails(T... proxiedUserDetails) {
-        T mergedProxiedUserDetails = null;
+        ProxiedUserDetailsMerger<T> merger = new ProxiedUserDetailsMerger<>();
         for (T userDetails : proxiedUserDetails) {
-            if (mergedProxiedUserDetails == null) {
-                mergedProxiedUserDetails = userDetails;
-            } else {
-                // verify we are merging like with like
-                if (!mergedProxiedUserDetails.getPrimaryUser().getDn().equals(userDetails.getPrimaryUser().getDn())) {
-                    throw new IllegalArgumentException("Cannot merge datawaveUserDetailss with different primary users: "
-                                    + mergedProxiedUserDetails.getPrimaryUser().getDn() + " vs " + userDetails.getPrimaryUser().getDn());
-                }
-                
-                // create a map of our users in the correct order
-                LinkedHashMap<SubjectIssuerDNPair,DatawaveUser> users = mergedProxiedUserDetails.getProxiedUsers().stream()
-                                .collect(Collectors.toMap(DatawaveUser::getDn, Function.identity(), (e1, e2) -> e1, LinkedHashMap::new));
-                // keep track of extras
-                LinkedHashMap<SubjectIssuerDNPair,DatawaveUser> extraProxies = new LinkedHashMap<>();
-                
-                // for each user, merge or add to extras
-                for (DatawaveUser user : userDetails.getProxiedUsers()) {
-                    if (users.containsKey(user.getDn())) {
-                        users.put(user.getDn(), mergeUsers(users.get(user.getDn()), user));
-                    } else {
-                        extraProxies.put(user.getDn(), user);
-                    }
-                }
-                
-                // and create a merged datawaveUserDetails
-                List<DatawaveUser> mergedUsers = new ArrayList<>(users.values());
-                mergedUsers.addAll(extraProxies.values());
-                mergedProxiedUserDetails = mergedProxiedUserDetails.newInstance(mergedUsers);
+            if (userDetails != null) {
+                merger.add(userDetails);
             }
         }
-        return mergedProxiedUserDetails;
+        return merger.build();
     }
     
     public static DatawaveUser mergeUsers(DatawaveUser... users) {
-        DatawaveUser datawaveUser = null;
+        ProxiedUserDetailsMerger.UserMerger merger = null;
         for (DatawaveUser user : users) {
-            if (datawaveUser == null) {
-                datawaveUser = user;
+            if (user == null) {
+                continue;
+            }
+            if (merger == null) {
+                merger = new ProxiedUserDetailsMerger.UserMerger(user);
             } else {
-                // verify we are merging like with like.
-                if (!user.getDn().equals(datawaveUser.getDn())) {
-                    throw new IllegalArgumentException("Cannot merge different users: " + user.getDn() + " and " + datawaveUser.getDn());
-                }
-                if (!user.getUserType().equals(datawaveUser.getUserType())) {
-                    throw new IllegalArgumentException("Cannot merge users of different types");
-                }
-                // merge role maps
-                Multimap<String,String> mergedRoleToAuth = HashMultimap.create(datawaveUser.getRoleToAuthMapping());
-                mergedRoleToAuth.putAll(user.getRoleToAuthMapping());
-                // create merged user
-                datawaveUser = new DatawaveUser(user.getDn(), user.getUserType(),
-                                Sets.union(new HashSet<>(user.getAuths()), new HashSet<>(datawaveUser.getAuths())),
-                                Sets.union(new HashSet<>(user.getRoles()), new HashSet<>(datawaveUser.getRoles())), mergedRoleToAuth,
-                                System.currentTimeMillis());
+                merger.merge(user);
             }
         }
-        return datawaveUser;
+        return (merger == null) ? null : merger.build(System.currentTimeMillis());
     }
     
 }
@@ -0,0 +1,103 @@
+package datawave.microservice.authorization.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of authorizations, as bytes, that ignores an authorization it already holds. The authorizations are compared by content, with an open addressing
+ * hash table of indexes into the list, so adding one allocates nothing unless the list has to grow. Presizing it with the expected number of authorizations
+ * avoids the growing as well.
+ * <p>
+ * The list holds on to the arrays it is given, it does not copy them.
+ */
+final class DistinctAuthList extends AbstractList<byte[]> implements RandomAccess {
+    
+    private byte[][] auths;
+    private int[] hashes;
+    // index + 1 of the auth in each slot, 0 for an empty slot
+    private int[] slots;
+    private int size;
+    
+    DistinctAuthList(int expectedSize) {
+        int capacity = Math.max(expectedSize, 4);
+        auths = new byte[capacity][];
+        hashes = new int[capacity];
+        slots = new int[tableSize(capacity)];
+    }
+    
+    private static int tableSize(int capacity) {
+        // at most half full
+        return Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) * 2;
+    }
+    
+    /**
+     * @return true if the auth was added, false if the list already held it
+     */
+    boolean addAuth(byte[] auth) {
+        int hash = hash(auth);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        for (int index; (index = slots[slot]) != 0; slot = (slot + 1) & mask) {
+            if (hashes[index - 1] == hash && Arrays.equals(auths[index - 1], auth)) {
+                return false;
+            }
+        }
+        if (size == auths.length) {
+            grow();
+        }
+        addNew(auth, hash);
+        return true;
+    }
+    
+    void addAll(Iterable<byte[]> authsToAdd) {
+        for (byte[] auth : authsToAdd) {
+            addAuth(auth);
+        }
+    }
+    
+    private void addNew(byte[] auth, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        auths[size] = auth;
+        hashes[size] = hash;
+        slots[slot] = ++size;
+    }
+    
+    private void grow() {
+        int capacity = auths.length * 2;
+        auths = Arrays.copyOf(auths, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        slots = new int[tableSize(capacity)];
+        int mask = slots.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hashes[i] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+    
+    private static int hash(byte[] auth) {
+        int hash = Arrays.hashCode(auth);
+        // spread the bits, since the table is indexed by the low ones
+        return hash ^ (hash >>> 16);
+    }
+    
+    @Override
+    public byte[] get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return auths[index];
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+}
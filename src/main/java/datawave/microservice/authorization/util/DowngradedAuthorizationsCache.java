@@ -0,0 +1,218 @@
+package datawave.microservice.authorization.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.accumulo.core.security.Authorizations;
+
+import datawave.security.authorization.AuthorizationException;
+import datawave.security.authorization.DatawaveUser;
+import datawave.security.authorization.ProxiedUserDetails;
+import datawave.security.authorization.SubjectIssuerDNPair;
+import datawave.util.cache.BoundedCache;
+import datawave.util.metrics.Counter;
+import datawave.util.metrics.HotPathMetrics;
+
+/**
+ * Remembers the results of {@link AuthorizationsUtil#getDowngradedAuthorizations(String, ProxiedUserDetails, ProxiedUserDetails)}, so that a client that
+ * repeats the same query, e.g. a dashboard that polls, does not have the requested auths validated and every proxied entity's {@link Authorizations} rebuilt
+ * each time.
+ * <p>
+ * Results are keyed on the requested auths and on the DN, creation time and auths of every user in both chains. The auths are part of the key because
+ * users with the same DN and creation time can still differ, e.g. two merges of remote details in the same millisecond; they are compared by their
+ * {@link AuthFingerprint}, which is computed once per user. An entry is never returned after the earliest expiration time of the users it was built
+ * for, and entries are also evicted when the cache is full or, if a time to live is given, when they have been cached that long. Only successful results are
+ * cached, so a request for auths the user does not have is rejected every time.
+ * <p>
+ * The cached sets are unmodifiable and are shared between callers.
+ */
+public class DowngradedAuthorizationsCache {
+    
+    public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+    
+    private static final Counter HITS = HotPathMetrics.counter("datawave.authorizations.downgrade.cache.hits");
+    private static final Counter MISSES = HotPathMetrics.counter("datawave.authorizations.downgrade.cache.misses");
+    
+    private final BoundedCache<Key,Entry> cache;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    
+    public DowngradedAuthorizationsCache() {
+        this(DEFAULT_MAXIMUM_SIZE, null);
+    }
+    
+    /**
+     * @param maximumSize
+     *            the maximum number of results to remember
+     * @param ttl
+     *            how long a result is remembered, or null to keep it until it is evicted or one of its users expires
+     */
+    public DowngradedAuthorizationsCache(int maximumSize, Duration ttl) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("The maximum size must not be negative: " + maximumSize);
+        }
+        BoundedCache.Builder<Key,Entry> builder = BoundedCache.<Key,Entry> builder().maximumSize(maximumSize);
+        if (ttl != null) {
+            builder.expireAfterWrite(ttl);
+        }
+        this.cache = builder.build();
+    }
+    
+    /**
+     * The same as {@link AuthorizationsUtil#getDowngradedAuthorizations(String, ProxiedUserDetails, ProxiedUserDetails)}, answered from the cache when
+     * possible.
+     *
+     * @return an unmodifiable set of {@link Authorizations}
+     * @throws AuthorizationException
+     *             if the requested auths is not a subset of the {@code overallUserDetails} users's auths
+     */
+    public <T extends ProxiedUserDetails> Set<Authorizations> getDowngradedAuthorizations(String requestedAuths, T overallUserDetails, T queryUserDetails)
+                    throws AuthorizationException {
+        if (overallUserDetails == null || queryUserDetails == null) {
+            return AuthorizationsUtil.getDowngradedAuthorizations(requestedAuths, overallUserDetails, queryUserDetails);
+        }
+        return get(requestedAuths, overallUserDetails.getPrimaryUser(), overallUserDetails.getProxiedUsers(), queryUserDetails.getPrimaryUser(),
+                        queryUserDetails.getProxiedUsers(),
+                        () -> AuthorizationsUtil.getDowngradedAuthorizations(requestedAuths, overallUserDetails, queryUserDetails));
+    }
+    
+    /**
+     * Builds the result for a key that is not cached.
+     */
+    interface Loader {
+        Set<Authorizations> load() throws AuthorizationException;
+    }
+    
+    Set<Authorizations> get(String requestedAuths, DatawaveUser overallUser, Collection<? extends DatawaveUser> overallUsers, DatawaveUser queryUser,
+                    Collection<? extends DatawaveUser> queryUsers, Loader loader) throws AuthorizationException {
+        long now = System.currentTimeMillis();
+        Key key = new Key(requestedAuths, overallUser, overallUsers, queryUser, queryUsers);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            if (now < entry.expiresAt) {
+                hits.increment();
+                HITS.increment();
+                return entry.auths;
+            }
+            cache.invalidate(key);
+            expirations.increment();
+        }
+        misses.increment();
+        MISSES.increment();
+        
+        Set<Authorizations> auths = Collections.unmodifiableSet(loader.load());
+        if (now < key.expiresAt) {
+            cache.put(key, new Entry(auths, key.expiresAt));
+        }
+        return auths;
+    }
+    
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+    
+    public long size() {
+        return cache.size();
+    }
+    
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    public long getMissCount() {
+        return misses.sum();
+    }
+    
+    /**
+     * @return the fraction of requests answered from the cache, or 1 if there have been no requests
+     */
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long requestCount = hitCount + getMissCount();
+        return (requestCount == 0) ? 1.0 : (double) hitCount / requestCount;
+    }
+    
+    /**
+     * @return the number of results dropped because the cache was full or their time to live was up
+     */
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+    
+    /**
+     * @return the number of results dropped because one of their users had expired
+     */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+    
+    private static final class Entry {
+        private final Set<Authorizations> auths;
+        private final long expiresAt;
+        
+        private Entry(Set<Authorizations> auths, long expiresAt) {
+            this.auths = auths;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    private static final class Key {
+        private final String requestedAuths;
+        private final List<Object> users;
+        private final int hashCode;
+        // not part of the key; the same users always expire at the same time
+        private final long expiresAt;
+        
+        private Key(String requestedAuths, DatawaveUser overallUser, Collection<? extends DatawaveUser> overallUsers, DatawaveUser queryUser,
+                        Collection<? extends DatawaveUser> queryUsers) {
+            this.requestedAuths = requestedAuths;
+            this.users = new ArrayList<>((overallUsers.size() + queryUsers.size() + 2) * 4);
+            long expiresAt = Long.MAX_VALUE;
+            expiresAt = addUser(overallUser, expiresAt);
+            for (DatawaveUser user : overallUsers) {
+                expiresAt = addUser(user, expiresAt);
+            }
+            // separates the chains, and records which of the query users is the primary one, since only the others are added as they are
+            users.add(null);
+            expiresAt = addUser(queryUser, expiresAt);
+            for (DatawaveUser user : queryUsers) {
+                users.add(user == queryUser);
+                expiresAt = addUser(user, expiresAt);
+            }
+            this.expiresAt = expiresAt;
+            this.hashCode = Objects.hash(requestedAuths, users);
+        }
+        
+        private long addUser(DatawaveUser user, long expiresAt) {
+            SubjectIssuerDNPair dn = user.getDn();
+            users.add(dn);
+            users.add(user.getCreationTime());
+            users.add(AuthorizationsUtil.fingerprint(user));
+            long expirationTime = user.getExpirationTime();
+            return (expirationTime > 0) ? Math.min(expiresAt, expirationTime) : expiresAt;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return hashCode == key.hashCode && Objects.equals(requestedAuths, key.requestedAuths) && users.equals(key.users);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package datawave.microservice.authorization.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import com.google.common.collect.HashMultimap;
+
+import datawave.security.authorization.DatawaveUser;
+import datawave.security.authorization.ProxiedUserDetails;
+import datawave.security.authorization.SubjectIssuerDNPair;
+
+/**
+ * Merges any number of {@link ProxiedUserDetails} for the same primary user, e.g. the views of a user from several remote systems, into one. The result is the
+ * same as merging them pairwise with {@link AuthorizationsUtil#mergeProxiedUserDetails(ProxiedUserDetails[])}, but each user is merged into one set of auths,
+ * one set of roles and one role to auth multimap as the details are added, and the merged {@link DatawaveUser}s and {@link ProxiedUserDetails} are built
+ * once, by {@link #build()}:
+ * <ul>
+ * <li>the users of the first details come first, in order, followed by the users that only later details have, in the order they were first seen</li>
+ * <li>a user that both the details merged so far and a later one have is merged, as {@link AuthorizationsUtil#mergeUsers(DatawaveUser...)} would</li>
+ * <li>a user that appears more than once in the first details is only taken once, and one that appears more than once among the new users of a later details
+ * is taken from its last appearance</li>
+ * </ul>
+ * A merger is not thread safe.
+ *
+ * @param <T>
+ *            the type of details
+ */
+public class ProxiedUserDetailsMerger<T extends ProxiedUserDetails> {
+    
+    private final LinkedHashMap<SubjectIssuerDNPair,Entry> users = new LinkedHashMap<>();
+    private T first;
+    private DatawaveUser primaryUser;
+    private int count;
+    
+    /**
+     * Add the next details.
+     *
+     * @param userDetails
+     *            the details
+     * @return this merger
+     * @throws IllegalArgumentException
+     *             if the details are for a different primary user, or if one of their users has a different type than the same user in the details added so far
+     */
+    public ProxiedUserDetailsMerger<T> add(T userDetails) {
+        if (first == null) {
+            first = userDetails;
+        }
+        addUsers(userDetails.getPrimaryUser(), userDetails.getProxiedUsers());
+        return this;
+    }
+    
+    void addUsers(DatawaveUser primary, Collection<? extends DatawaveUser> proxiedUsers) {
+        if (count == 0) {
+            primaryUser = primary;
+            for (DatawaveUser user : proxiedUsers) {
+                users.putIfAbsent(user.getDn(), new Entry(user, count));
+            }
+        } else {
+            // verify we are merging like with like
+            if (!primaryUser.getDn().equals(primary.getDn())) {
+                throw new IllegalArgumentException("Cannot merge datawaveUserDetailss with different primary users: " + primaryUser.getDn() + " vs "
+                                + primary.getDn());
+            }
+            for (DatawaveUser user : proxiedUsers) {
+                Entry entry = users.get(user.getDn());
+                if (entry == null) {
+                    users.put(user.getDn(), new Entry(user, count));
+                } else if (entry.added < count) {
+                    entry.merger.merge(user);
+                } else {
+                    // a new user seen twice in the same details
+                    entry.merger = new UserMerger(user);
+                }
+            }
+        }
+        count++;
+    }
+    
+    /**
+     * @return the merged details, the only details if just one was added, or null if none were
+     */
+    public T build() {
+        if (count < 2) {
+            return first;
+        }
+        return first.newInstance(buildUsers());
+    }
+    
+    List<DatawaveUser> buildUsers() {
+        long creationTime = System.currentTimeMillis();
+        List<DatawaveUser> mergedUsers = new ArrayList<>(users.size());
+        for (Entry entry : users.values()) {
+            mergedUsers.add(entry.merger.build(creationTime));
+        }
+        return mergedUsers;
+    }
+    
+    private static final class Entry {
+        private UserMerger merger;
+        // which details the user was first seen in
+        private final int added;
+        
+        private Entry(DatawaveUser user, int added) {
+            this.merger = new UserMerger(user);
+            this.added = added;
+        }
+    }
+    
+    /**
+     * Merges the auths, roles and role to auth mappings of any number of instances of the same user.
+     */
+    static final class UserMerger {
+        
+        private DatawaveUser user;
+        // null until a second user is merged
+        private HashSet<String> auths;
+        private HashSet<String> roles;
+        private HashMultimap<String,String> roleToAuthMapping;
+        
+        UserMerger(DatawaveUser user) {
+            this.user = user;
+        }
+        
+        void merge(DatawaveUser other) {
+            // verify we are merging like with like.
+            if (!other.getDn().equals(user.getDn())) {
+                throw new IllegalArgumentException("Cannot merge different users: " + other.getDn() + " and " + user.getDn());
+            }
+            if (!other.getUserType().equals(user.getUserType())) {
+                throw new IllegalArgumentException("Cannot merge users of different types");
+            }
+            if (auths == null) {
+                auths = new HashSet<>(user.getAuths());
+                roles = new HashSet<>(user.getRoles());
+                roleToAuthMapping = HashMultimap.create(user.getRoleToAuthMapping());
+            }
+            auths.addAll(other.getAuths());
+            roles.addAll(other.getRoles());
+            roleToAuthMapping.putAll(other.getRoleToAuthMapping());
+            user = other;
+        }
+        
+        /**
+         * @return the user itself if nothing was merged into it, otherwise a new user created at the given time
+         */
+        DatawaveUser build(long creationTime) {
+            if (auths == null) {
+                return user;
+            }
+            return new DatawaveUser(user.getDn(), user.getUserType(), AuthorizationsUtil.pooled(auths), roles, roleToAuthMapping, creationTime);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package datawave.microservice.authorization.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import datawave.security.authorization.AuthorizationException;
+import datawave.security.authorization.ProxiedUserDetails;
+import datawave.util.metrics.Counter;
+import datawave.util.metrics.HotPathMetrics;
+import datawave.util.metrics.Timer;
+
+/**
+ * Fetches the {@link ProxiedUserDetails} of a user from several sources, e.g. the local user service and remote systems, at the same time, and merges them as
+ * {@link AuthorizationsUtil#mergeProxiedUserDetails(ProxiedUserDetails[])} would. Fetching them one after the other takes the sum of the sources' latencies,
+ * this takes the longest of them, bounded by the timeout.
+ * <p>
+ * The details are merged as they arrive, but always in the order of the sources, so the result does not depend on which source answered first. A source that
+ * returns null adds nothing. A source that fails, that the executor rejects, or that has not answered within the timeout is cancelled and handled according
+ * to the {@link PartialResultPolicy}.
+ * <p>
+ * The timeout is one overall deadline for the whole fetch, not a time limit per source: it starts when the fetch does, so a source that waited in the
+ * executor's queue has that much less time to answer. No fetch takes longer than the timeout, however busy the executor is.
+ * <p>
+ * Unless another executor is given the sources are run on virtual threads, where the JVM has them, and otherwise on a shared, bounded pool of daemon threads,
+ * named {@code user-details-fetch-N}: at most eight per processor, and at least 16, which exit after a minute idle. Up to 1024 more fetches wait in its queue;
+ * beyond that a source is rejected, and counts as failed.
+ *
+ * @param <T>
+ *            the type of details
+ */
+public class ProxiedUserDetailsPipeline<T extends ProxiedUserDetails> {
+    
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+    
+    private static final Timer FETCH = HotPathMetrics.timer("datawave.authorizations.fetch");
+    private static final Counter FAILURES = HotPathMetrics.counter("datawave.authorizations.fetch.failures");
+    private static final Counter TIMEOUTS = HotPathMetrics.counter("datawave.authorizations.fetch.timeouts");
+    
+    /**
+     * What to do when a source fails or times out.
+     */
+    public enum PartialResultPolicy {
+        /** every source must answer, as when they are fetched one after the other */
+        REQUIRE_ALL,
+        /** the first source, usually the local lookup, must answer; the details of the others that answered are merged into it */
+        REQUIRE_FIRST,
+        /** at least one source must answer; the details of those that did are merged */
+        REQUIRE_ANY;
+        
+        boolean isRequired(int source) {
+            return this == REQUIRE_ALL || (this == REQUIRE_FIRST && source == 0);
+        }
+    }
+    
+    private final ExecutorService executor;
+    private final Duration timeout;
+    private final PartialResultPolicy policy;
+    
+    /**
+     * A pipeline on the default executor that waits up to {@link #DEFAULT_TIMEOUT} for every source.
+     */
+    public ProxiedUserDetailsPipeline() {
+        this(null, DEFAULT_TIMEOUT, PartialResultPolicy.REQUIRE_ALL);
+    }
+    
+    /**
+     * @param executor
+     *            runs the sources, or null for the default executor. The pipeline does not shut it down.
+     * @param timeout
+     *            how long to wait for the sources, all together, from the start of the fetch
+     * @param policy
+     *            what to do when a source fails or times out
+     */
+    public ProxiedUserDetailsPipeline(ExecutorService executor, Duration timeout, PartialResultPolicy policy) {
+        if (timeout == null || timeout.isNegative()) {
+            throw new IllegalArgumentException("The timeout must not be null or negative: " + timeout);
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("The partial result policy must not be null");
+        }
+        this.executor = (executor == null) ? DefaultExecutor.INSTANCE : executor;
+        this.timeout = timeout;
+        this.policy = policy;
+    }
+    
+    /**
+     * Fetch and merge the details from each source.
+     *
+     * @param sources
+     *            the sources, in the order their details are merged
+     * @return the merged details, or null if there are no sources or none of them had details
+     * @throws AuthorizationException
+     *             if a source the policy requires failed, was rejected by the executor or timed out, or if the policy is {@link PartialResultPolicy#REQUIRE_ANY}
+     *             and all of them did
+     * @throws IllegalArgumentException
+     *             if the details cannot be merged, see {@link ProxiedUserDetailsMerger#add(ProxiedUserDetails)}
+     */
+    public T fetchAndMerge(List<? extends Supplier<? extends T>> sources) throws AuthorizationException {
+        ProxiedUserDetailsMerger<T> merger = new ProxiedUserDetailsMerger<>();
+        long start = FETCH.start();
+        try {
+            fetch(sources, merger::add);
+        } catch (AuthorizationException | RuntimeException e) {
+            FETCH.stopFailed(start);
+            throw e;
+        }
+        FETCH.stop(start);
+        return merger.build();
+    }
+    
+    /**
+     * Run the sources and hand their non-null results to the consumer, in the order of the sources, as soon as they and all of the sources before them have
+     * answered.
+     */
+    <R> void fetch(List<? extends Supplier<? extends R>> sources, Consumer<? super R> consumer) throws AuthorizationException {
+        int count = sources.size();
+        if (count == 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        CompletionService<R> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<R>,Integer> indexes = new IdentityHashMap<>(count * 2);
+        List<Future<R>> futures = new ArrayList<>(count);
+        Object[] results = new Object[count];
+        boolean[] done = new boolean[count];
+        Throwable firstFailure = null;
+        int answered = 0;
+        int next = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                Supplier<? extends R> source = sources.get(i);
+                try {
+                    Future<R> future = completionService.submit(source::get);
+                    futures.add(future);
+                    indexes.put(future, i);
+                } catch (RejectedExecutionException e) {
+                    // a saturated executor fails the source rather than running it where the timeout cannot stop it
+                    FAILURES.increment();
+                    if (policy.isRequired(i)) {
+                        throw new AuthorizationException("The executor rejected the fetch of user details from source " + i, e);
+                    }
+                    if (firstFailure == null) {
+                        firstFailure = e;
+                    }
+                    done[i] = true;
+                }
+            }
+            
+            for (int received = 0; received < futures.size(); received++) {
+                Future<R> future = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    break;
+                }
+                int source = indexes.get(future);
+                done[source] = true;
+                try {
+                    results[source] = future.get();
+                    answered++;
+                } catch (ExecutionException e) {
+                    FAILURES.increment();
+                    if (policy.isRequired(source)) {
+                        throw new AuthorizationException("Failed to fetch user details from source " + source, e.getCause());
+                    }
+                    if (firstFailure == null) {
+                        firstFailure = e.getCause();
+                    }
+                }
+                next = consumeInOrder(results, done, next, consumer);
+            }
+            
+            if (answered < count) {
+                for (int source = 0; source < count; source++) {
+                    if (!done[source]) {
+                        TIMEOUTS.increment();
+                        if (policy.isRequired(source)) {
+                            throw new AuthorizationException("Timed out after " + timeout + " fetching user details from source " + source);
+                        }
+                        done[source] = true;
+                    }
+                }
+                if (answered == 0) {
+                    throw new AuthorizationException("Failed to fetch user details from any of " + count + " sources", firstFailure);
+                }
+                consumeInOrder(results, done, next, consumer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthorizationException("Interrupted while fetching user details", e);
+        } finally {
+            for (Future<R> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <R> int consumeInOrder(Object[] results, boolean[] done, int next, Consumer<? super R> consumer) {
+        while (next < results.length && done[next]) {
+            if (results[next] != null) {
+                consumer.accept((R) results[next]);
+                results[next] = null;
+            }
+            next++;
+        }
+        return next;
+    }
+    
+    /**
+     * Created the first time a pipeline needs it.
+     */
+    private static final class DefaultExecutor {
+        // sizes of the pool used where there are no virtual threads
+        private static final int MAX_THREADS = Math.max(16, 8 * Runtime.getRuntime().availableProcessors());
+        private static final int MAX_QUEUED = 1024;
+        
+        private static final ExecutorService INSTANCE = create();
+        
+        private static ExecutorService create() {
+            try {
+                // Java 21 and later
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // fetches mostly wait on remote calls, so many more threads than processors are useful, but not an unbounded number of them
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(MAX_QUEUED),
+                                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("user-details-fetch-%d").build(), new ThreadPoolExecutor.AbortPolicy());
+                pool.allowCoreThreadTimeOut(true);
+                return pool;
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package datawave.microservice.security.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A proxied DN chain, normalized and classified by {@link DnUtils#classifyChain(String, String, String, String)}. The chain is a list of subject/issuer pairs,
+ * in the same order as {@link DnUtils#buildNormalizedDNList(String, String, String, String)} returns them, with each subject DN parsed once.
+ */
+public final class ClassifiedChain {
+    
+    private final List<String> normalizedDNs;
+    private final List<ParsedDN> subjects;
+    private final int userIndex;
+    
+    ClassifiedChain(List<String> normalizedDNs, List<ParsedDN> subjects) {
+        this.normalizedDNs = Collections.unmodifiableList(normalizedDNs);
+        this.subjects = Collections.unmodifiableList(subjects);
+        int index = -1;
+        for (int i = 0; i < subjects.size(); i++) {
+            if (!subjects.get(i).isNPE()) {
+                index = i;
+                break;
+            }
+        }
+        this.userIndex = index;
+    }
+    
+    /**
+     * @return the number of subject/issuer pairs in the chain
+     */
+    public int size() {
+        return subjects.size();
+    }
+    
+    /**
+     * @return the normalized subject and issuer DNs, as returned by {@link DnUtils#buildNormalizedDNList(String, String, String, String)}
+     */
+    public List<String> getNormalizedDNs() {
+        return normalizedDNs;
+    }
+    
+    public String getSubjectDN(int index) {
+        return normalizedDNs.get(2 * index);
+    }
+    
+    public String getIssuerDN(int index) {
+        return normalizedDNs.get((2 * index) + 1);
+    }
+    
+    /**
+     * @return the parsed subject DN of the given pair
+     */
+    public ParsedDN getSubject(int index) {
+        return subjects.get(index);
+    }
+    
+    /**
+     * @return the parsed subject DNs, one per pair
+     */
+    public List<ParsedDN> getSubjects() {
+        return subjects;
+    }
+    
+    /**
+     * @return true if the subject DN of the given pair is a non-person entity
+     */
+    public boolean isNPE(int index) {
+        return subjects.get(index).isNPE();
+    }
+    
+    /**
+     * @return the index of the first pair whose subject is not a non-person entity, or -1 if there isn't one
+     */
+    public int getUserIndex() {
+        return userIndex;
+    }
+    
+    /**
+     * @return the first subject that is not a non-person entity, or null if there isn't one
+     */
+    public ParsedDN getUser() {
+        return (userIndex < 0) ? null : subjects.get(userIndex);
+    }
+    
+    /**
+     * @return the same DN that {@link DnUtils#getUserDN(String[], boolean)} would find in the normalized DNs, or null if there isn't one
+     */
+    public String getUserDN() {
+        return (userIndex < 0) ? null : getSubjectDN(userIndex);
+    }
+    
+    /**
+     * @return the short name of the user, or null if there isn't a user
+     */
+    public String getUserShortName() {
+        return (userIndex < 0) ? null : subjects.get(userIndex).getShortName();
+    }
+    
+    @Override
+    public String toString() {
+        return normalizedDNs.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package datawave.microservice.security.util;
+
+import datawave.security.util.ProxiedEntityUtils;
+
+/**
+ * Finds the OU values of a DN in place, for {@link NpeOuMatcher#isNPE(String)}.
+ * <p>
+ * Only simple DNs are scanned: comma separated {@code type=value} pairs where the type is a plain attribute name and the value has no escapes, quotes,
+ * multi-valued RDNs or other characters with a special meaning in a DN. Anything else is left to {@link ProxiedEntityUtils#getOrganizationalUnits(String)},
+ * which remains the definition of what the OUs of a DN are.
+ */
+final class DnOuScanner {
+    
+    private static final int NO_MATCH = 0;
+    private static final int MATCH = 1;
+    private static final int NOT_SIMPLE = -1;
+    
+    private DnOuScanner() {}
+    
+    static boolean anyMatch(String dn, NpeOuMatcher matcher) {
+        int result = scan(dn, matcher);
+        if (result != NOT_SIMPLE) {
+            return result == MATCH;
+        }
+        for (String ou : ProxiedEntityUtils.getOrganizationalUnits(dn)) {
+            if (matcher.matches(ou)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Scan the whole DN, since a DN that is not valid has no OUs at all, even if an OU matched before the problem was found.
+     */
+    static int scan(String dn, NpeOuMatcher matcher) {
+        int length = dn.length();
+        boolean matched = false;
+        int pos = 0;
+        while (true) {
+            // the attribute type
+            pos = skipSpaces(dn, pos, length);
+            int typeStart = pos;
+            if (pos >= length || !isLetter(dn.charAt(pos))) {
+                return NOT_SIMPLE;
+            }
+            while (pos < length && isKeyChar(dn.charAt(pos))) {
+                pos++;
+            }
+            int typeEnd = pos;
+            pos = skipSpaces(dn, pos, length);
+            if (pos >= length || dn.charAt(pos) != '=') {
+                return NOT_SIMPLE;
+            }
+            
+            // the value, without leading or trailing spaces
+            pos = skipSpaces(dn, pos + 1, length);
+            int valueStart = pos;
+            int valueEnd = pos;
+            while (pos < length && dn.charAt(pos) != ',') {
+                char c = dn.charAt(pos);
+                if (c < ' ' || c == ';' || c == '+' || c == '=' || c == '\\' || c == '"' || c == '#' || c == '<' || c == '>') {
+                    return NOT_SIMPLE;
+                }
+                pos++;
+                if (c != ' ') {
+                    valueEnd = pos;
+                }
+            }
+            if (valueEnd == valueStart) {
+                return NOT_SIMPLE;
+            }
+            
+            if (!matched && typeEnd - typeStart == 2 && isOU(dn, typeStart) && matcher.matches(dn, valueStart, valueEnd)) {
+                matched = true;
+            }
+            
+            if (pos >= length) {
+                return matched ? MATCH : NO_MATCH;
+            }
+            pos++;
+        }
+    }
+    
+    private static int skipSpaces(String dn, int pos, int length) {
+        while (pos < length && dn.charAt(pos) == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+    
+    private static boolean isOU(String dn, int start) {
+        char o = dn.charAt(start);
+        char u = dn.charAt(start + 1);
+        return (o == 'o' || o == 'O') && (u == 'u' || u == 'U');
+    }
+    
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+    
+    private static boolean isKeyChar(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9') || c == '-';
+    }
+}
@@ -1,24 +1,143 @@
 package datawave.microservice.security.util;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 import datawave.security.authorization.SubjectIssuerDNPair;
 import datawave.security.util.ProxiedEntityUtils;
+import datawave.util.cache.BoundedCache;
+import datawave.util.cache.CacheStats;
+import datawave.util.metrics.Counter;
+import datawave.util.metrics.Histogram;
+import datawave.util.metrics.HotPathMetrics;
+import datawave.util.metrics.Timer;
 
 public class DnUtils {
     
-    private final Pattern subjectDnPattern;
+    /** The default number of parsed DNs that are remembered */
+    public static final int DEFAULT_PARSED_DN_CACHE_SIZE = 10000;
     
-    /** Parsed NPE OU identifiers */
-    private final List<String> npeOuList;
+    // shared by all instances, see HotPathMetrics
+    private static final Timer NORMALIZE_TIMER = HotPathMetrics.timer("datawave.dn.normalize");
+    private static final Timer CLASSIFY_TIMER = HotPathMetrics.timer("datawave.dn.classify");
+    private static final Timer PROXY_DN_TIMER = HotPathMetrics.timer("datawave.dn.proxy");
+    private static final Histogram CHAIN_LENGTH = HotPathMetrics.histogram("datawave.dn.chain.length");
+    private static final Counter PARSED_DN_CACHE_HITS = HotPathMetrics.counter("datawave.dn.cache.parsed.hits");
+    private static final Counter PARSED_DN_CACHE_MISSES = HotPathMetrics.counter("datawave.dn.cache.parsed.misses");
+    private static final Counter DN_CACHE_HITS = HotPathMetrics.counter("datawave.dn.cache.normalized.hits");
+    private static final Counter DN_CACHE_MISSES = HotPathMetrics.counter("datawave.dn.cache.normalized.misses");
+    private static final Counter PROXY_DN_CACHE_HITS = HotPathMetrics.counter("datawave.dn.cache.proxy.hits");
+    private static final Counter PROXY_DN_CACHE_MISSES = HotPathMetrics.counter("datawave.dn.cache.proxy.misses");
+    // requests with a proxied chain, and the time spent checking each of their issuer DNs against the subject DN pattern
+    private static final Counter SUBJECT_DN_CHECK_REQUESTS = HotPathMetrics.counter("datawave.dn.subject-check.requests");
+    private static final Timer SUBJECT_DN_CHECK_TIMER = HotPathMetrics.timer("datawave.dn.subject-check");
+    
+    private final int parsedDnCacheSize;
+    private final int dnCacheSize;
+    private final Duration dnCacheTtl;
+    
+    /**
+     * The current configuration. Each call reads it once and uses that snapshot throughout, so a call that overlaps {@link #reconfigure(Pattern, NpeOuMatcher)}
+     * sees either the old configuration or the new one, never a mix, and never waits for it.
+     */
+    private volatile Config config;
     
     public DnUtils(Pattern subjectDnPattern, List<String> npeOuList) {
-        this.subjectDnPattern = subjectDnPattern;
-        this.npeOuList = npeOuList;
+        this(subjectDnPattern, npeOuList, DEFAULT_PARSED_DN_CACHE_SIZE);
+    }
+    
+    public DnUtils(Pattern subjectDnPattern, List<String> npeOuList, int parsedDnCacheSize) {
+        this(subjectDnPattern, npeOuList, parsedDnCacheSize, 0, null);
+    }
+    
+    public DnUtils(Pattern subjectDnPattern, NpeOuMatcher npeOuMatcher) {
+        this(subjectDnPattern, npeOuMatcher, DEFAULT_PARSED_DN_CACHE_SIZE, 0, null);
+    }
+    
+    /**
+     * @param subjectDnPattern
+     *            a pattern that matches subject DNs, used to detect a subject DN passed as an issuer DN
+     * @param npeOuList
+     *            the OUs that identify a non-person entity, matched without regard to case
+     * @param parsedDnCacheSize
+     *            the maximum number of parsed DNs, and so of NPE classifications, that are cached, or 0 to disable the cache
+     * @param dnCacheSize
+     *            the maximum number of normalized DNs, and separately of normalized proxy DNs, that are cached, or 0 to disable the caches
+     * @param dnCacheTtl
+     *            how long a normalized DN is cached for, or null to keep it until it is evicted by size
+     */
+    public DnUtils(Pattern subjectDnPattern, List<String> npeOuList, int parsedDnCacheSize, int dnCacheSize, Duration dnCacheTtl) {
+        this(subjectDnPattern, NpeOuMatcher.compile(npeOuList), parsedDnCacheSize, dnCacheSize, dnCacheTtl);
+    }
+    
+    /**
+     * @param subjectDnPattern
+     *            a pattern that matches subject DNs, used to detect a subject DN passed as an issuer DN
+     * @param npeOuMatcher
+     *            decides which OUs identify a non-person entity
+     * @param parsedDnCacheSize
+     *            the maximum number of parsed DNs, and so of NPE classifications, that are cached, or 0 to disable the cache
+     * @param dnCacheSize
+     *            the maximum number of normalized DNs, and separately of normalized proxy DNs, that are cached, or 0 to disable the caches
+     * @param dnCacheTtl
+     *            how long a normalized DN is cached for, or null to keep it until it is evicted by size
+     */
+    public DnUtils(Pattern subjectDnPattern, NpeOuMatcher npeOuMatcher, int parsedDnCacheSize, int dnCacheSize, Duration dnCacheTtl) {
+        if (parsedDnCacheSize < 0)
+            throw new IllegalArgumentException("Parsed DN cache size must not be negative: " + parsedDnCacheSize);
+        if (dnCacheSize < 0)
+            throw new IllegalArgumentException("DN cache size must not be negative: " + dnCacheSize);
+        this.parsedDnCacheSize = parsedDnCacheSize;
+        this.dnCacheSize = dnCacheSize;
+        this.dnCacheTtl = dnCacheTtl;
+        this.config = new Config(subjectDnPattern, npeOuMatcher, parsedDnCacheSize, dnCacheSize, dnCacheTtl, null);
+    }
+    
+    /**
+     * Replace the subject DN pattern and the NPE OUs, e.g. when the configuration is reloaded, without rebuilding this object.
+     *
+     * @param subjectDnPattern
+     *            a pattern that matches subject DNs, used to detect a subject DN passed as an issuer DN
+     * @param npeOuList
+     *            the OUs that identify a non-person entity, matched without regard to case
+     * @see #reconfigure(Pattern, NpeOuMatcher)
+     */
+    public void reconfigure(Pattern subjectDnPattern, List<String> npeOuList) {
+        reconfigure(subjectDnPattern, NpeOuMatcher.compile(npeOuList));
+    }
+    
+    /**
+     * Replace the subject DN pattern and the NPE OU matcher, e.g. when the configuration is reloaded, without rebuilding this object.
+     * <p>
+     * The new configuration is compiled first and then swapped in as a whole, together with new, empty caches, so nothing cached under the old configuration
+     * is returned under the new one. Calls in progress finish with the configuration they started with; none of them is blocked. Cache statistics carry
+     * over.
+     *
+     * @param subjectDnPattern
+     *            a pattern that matches subject DNs, used to detect a subject DN passed as an issuer DN
+     * @param npeOuMatcher
+     *            decides which OUs identify a non-person entity
+     */
+    public void reconfigure(Pattern subjectDnPattern, NpeOuMatcher npeOuMatcher) {
+        // reconfigurations are serialized so that none of them loses the statistics of another; readers never lock
+        synchronized (this) {
+            config = new Config(subjectDnPattern, npeOuMatcher, parsedDnCacheSize, dnCacheSize, dnCacheTtl, config);
+        }
+    }
+    
+    private static <K,V> BoundedCache<K,V> newDnCache(int size, Duration ttl) {
+        BoundedCache.Builder<K,V> builder = BoundedCache.<K,V> builder().maximumSize(size);
+        if (ttl != null) {
+            builder.expireAfterWrite(ttl);
+        }
+        return builder.build();
     }
     
     public static String[] splitProxiedDNs(String proxiedDNs, boolean allowDups) {
@@ -34,55 +153,305 @@ public class DnUtils {
     }
     
     public Collection<String> buildNormalizedDNList(String subjectDN, String issuerDN, String proxiedSubjectDNs, String proxiedIssuerDNs) {
-        List<String> dnList = new ArrayList<>();
+        long start = NORMALIZE_TIMER.start();
+        try {
+            List<String> dnList = new ArrayList<>();
+            normalizeChain(config, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs, dnList::add);
+            NORMALIZE_TIMER.stop(start);
+            CHAIN_LENGTH.record(dnList.size() / 2);
+            return dnList;
+        } catch (RuntimeException e) {
+            NORMALIZE_TIMER.stopFailed(start);
+            throw e;
+        }
+    }
+    
+    /**
+     * Normalize, validate and classify a proxied chain in one pass. The normalized DNs are the same as the ones
+     * {@link #buildNormalizedDNList(String, String, String, String)} returns, and each subject DN is parsed once, with {@link #parseDN(String)}, so that the
+     * NPE flags, the user DN and the short names all come from that one parse.
+     *
+     * @return the classified chain
+     * @throws IllegalArgumentException
+     *             if the chain is invalid, exactly as {@link #buildNormalizedDNList(String, String, String, String)} reports it
+     */
+    public ClassifiedChain classifyChain(String subjectDN, String issuerDN, String proxiedSubjectDNs, String proxiedIssuerDNs) {
+        long start = CLASSIFY_TIMER.start();
+        try {
+            Config c = config;
+            List<String> dnList = new ArrayList<>();
+            List<ParsedDN> subjects = new ArrayList<>();
+            normalizeChain(c, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs, dn -> {
+                // DNs arrive as subject/issuer pairs
+                if ((dnList.size() & 1) == 0) {
+                    subjects.add(parseDN(c, dn));
+                }
+                dnList.add(dn);
+            });
+            CLASSIFY_TIMER.stop(start);
+            CHAIN_LENGTH.record(subjects.size());
+            return new ClassifiedChain(dnList, subjects);
+        } catch (RuntimeException e) {
+            CLASSIFY_TIMER.stopFailed(start);
+            throw e;
+        }
+    }
+    
+    /**
+     * Receives the DNs of a chain as they are normalized, in the order {@link #buildNormalizedDNList(String, String, String, String)} lists them.
+     */
+    private interface DNSink<E extends Exception> {
+        void accept(String dn) throws E;
+    }
+    
+    /**
+     * Normalize and validate a chain, passing each DN to the sink as soon as it is normalized. The final subject and issuer DNs are escaped.
+     */
+    private <E extends Exception> void normalizeChain(Config c, String subjectDN, String issuerDN, String proxiedSubjectDNs, String proxiedIssuerDNs,
+                    DNSink<E> sink) throws E {
         if (proxiedSubjectDNs != null) {
             if (proxiedIssuerDNs == null)
                 throw new IllegalArgumentException("If proxied subject DNs are supplied, then issuer DNs must be supplied as well.");
-            String[] subjectDNarray = splitProxiedDNs(proxiedSubjectDNs, true);
-            String[] issuerDNarray = splitProxiedDNs(proxiedIssuerDNs, true);
-            if (subjectDNarray.length != issuerDNarray.length)
-                throw new IllegalArgumentException("Subject and issuer DN lists do not have the same number of entries: " + Arrays.toString(subjectDNarray)
-                                + " vs " + Arrays.toString(issuerDNarray));
-            for (int i = 0; i < subjectDNarray.length; ++i) {
-                subjectDNarray[i] = normalizeDN(subjectDNarray[i]);
-                issuerDNarray[i] = normalizeDN(issuerDNarray[i]);
-                dnList.add(subjectDNarray[i]);
-                dnList.add(issuerDNarray[i]);
-                if (issuerDNarray[i].equalsIgnoreCase(subjectDNarray[i]))
-                    throw new IllegalArgumentException("Subject DN " + issuerDNarray[i] + " was passed as an issuer DN.");
-                if (subjectDnPattern.matcher(issuerDNarray[i]).find())
-                    throw new IllegalArgumentException("It appears that a subject DN (" + issuerDNarray[i] + ") was passed as an issuer DN.");
+            SUBJECT_DN_CHECK_REQUESTS.increment();
+            int subjectCount = ProxiedDNChain.count(proxiedSubjectDNs);
+            if (subjectCount >= 0 && subjectCount == ProxiedDNChain.count(proxiedIssuerDNs)) {
+                // walk both chains in place, pairing each subject with its issuer
+                int subjectStart = ProxiedDNChain.firstStart(proxiedSubjectDNs);
+                int issuerStart = ProxiedDNChain.firstStart(proxiedIssuerDNs);
+                while (subjectStart < proxiedSubjectDNs.length()) {
+                    int subjectEnd = ProxiedDNChain.end(proxiedSubjectDNs, subjectStart);
+                    int issuerEnd = ProxiedDNChain.end(proxiedIssuerDNs, issuerStart);
+                    acceptProxiedPair(c, sink, proxiedSubjectDNs.substring(subjectStart, subjectEnd), proxiedIssuerDNs.substring(issuerStart, issuerEnd));
+                    subjectStart = ProxiedDNChain.nextStart(proxiedSubjectDNs, subjectEnd);
+                    issuerStart = ProxiedDNChain.nextStart(proxiedIssuerDNs, issuerEnd);
+                }
+            } else {
+                String[] subjectDNarray = splitProxiedDNs(proxiedSubjectDNs, true);
+                String[] issuerDNarray = splitProxiedDNs(proxiedIssuerDNs, true);
+                if (subjectDNarray.length != issuerDNarray.length)
+                    throw new IllegalArgumentException("Subject and issuer DN lists do not have the same number of entries: " + Arrays.toString(subjectDNarray)
+                                    + " vs " + Arrays.toString(issuerDNarray));
+                for (int i = 0; i < subjectDNarray.length; ++i) {
+                    acceptProxiedPair(c, sink, subjectDNarray[i], issuerDNarray[i]);
+                }
             }
         }
-        subjectDN = normalizeDN(subjectDN);
-        issuerDN = normalizeDN(issuerDN);
-        dnList.add(subjectDN.replaceAll("(?<!\\\\)([<>])", "\\\\$1"));
-        dnList.add(issuerDN.replaceAll("(?<!\\\\)([<>])", "\\\\$1"));
-        return dnList;
+        subjectDN = normalizeAndEscape(c, subjectDN);
+        issuerDN = normalizeAndEscape(c, issuerDN);
+        sink.accept(subjectDN);
+        sink.accept(issuerDN);
+    }
+    
+    private <E extends Exception> void acceptProxiedPair(Config c, DNSink<E> sink, String subjectDN, String issuerDN) throws E {
+        subjectDN = normalize(c, subjectDN);
+        issuerDN = normalize(c, issuerDN);
+        sink.accept(subjectDN);
+        sink.accept(issuerDN);
+        if (issuerDN.equalsIgnoreCase(subjectDN))
+            throw new IllegalArgumentException("Subject DN " + issuerDN + " was passed as an issuer DN.");
+        if (isSubjectDN(c, issuerDN))
+            throw new IllegalArgumentException("It appears that a subject DN (" + issuerDN + ") was passed as an issuer DN.");
+    }
+    
+    private static boolean isSubjectDN(Config c, String issuerDN) {
+        long start = SUBJECT_DN_CHECK_TIMER.start();
+        boolean found = c.subjectDnMatcher.find(issuerDN);
+        SUBJECT_DN_CHECK_TIMER.stop(start);
+        return found;
+    }
+    
+    /**
+     * @return true if issuer DNs are checked against the subject DN pattern with a direct scan rather than the regular expression
+     */
+    public boolean isSubjectDnCheckDirect() {
+        return config.subjectDnMatcher.isDirectScan();
+    }
+    
+    private static String normalize(Config c, String dn) {
+        return (c.dnCache == null || dn == null) ? normalizeDN(dn) : getNormalizedDN(c, dn).normalized;
+    }
+    
+    private static String normalizeAndEscape(Config c, String dn) {
+        return (c.dnCache == null || dn == null) ? ProxiedDNChain.escape(normalizeDN(dn)) : getNormalizedDN(c, dn).escaped;
+    }
+    
+    private static NormalizedDN getNormalizedDN(Config c, String dn) {
+        NormalizedDN normalized = c.dnCache.getIfPresent(dn);
+        if (normalized == null) {
+            DN_CACHE_MISSES.increment();
+            normalized = new NormalizedDN(normalizeDN(dn));
+            c.dnCache.put(dn, normalized);
+        } else {
+            DN_CACHE_HITS.increment();
+        }
+        return normalized;
     }
     
     public String buildNormalizedProxyDN(String subjectDN, String issuerDN, String proxiedSubjectDNs, String proxiedIssuerDNs) {
-        StringBuilder sb = new StringBuilder();
-        for (String escapedDN : buildNormalizedDNList(subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs)) {
-            if (sb.length() == 0)
-                sb.append(escapedDN);
-            else
-                sb.append('<').append(escapedDN).append('>');
+        return buildNormalizedProxyDN(config, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs);
+    }
+    
+    private String buildNormalizedProxyDN(Config c, String subjectDN, String issuerDN, String proxiedSubjectDNs, String proxiedIssuerDNs) {
+        long start = PROXY_DN_TIMER.start();
+        try {
+            String proxyDN = buildNormalizedProxyDNUntimed(c, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs);
+            PROXY_DN_TIMER.stop(start);
+            return proxyDN;
+        } catch (RuntimeException e) {
+            PROXY_DN_TIMER.stopFailed(start);
+            throw e;
+        }
+    }
+    
+    private String buildNormalizedProxyDNUntimed(Config c, String subjectDN, String issuerDN, String proxiedSubjectDNs, String proxiedIssuerDNs) {
+        if (c.proxyDnCache == null)
+            return buildNormalizedProxyDNUncached(c, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs);
+        
+        // only successfully built proxy DNs are cached, so an invalid chain is rejected every time
+        ProxyDNKey key = new ProxyDNKey(subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs);
+        String proxyDN = c.proxyDnCache.getIfPresent(key);
+        if (proxyDN == null) {
+            PROXY_DN_CACHE_MISSES.increment();
+            proxyDN = buildNormalizedProxyDNUncached(c, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs);
+            c.proxyDnCache.put(key, proxyDN);
+        } else {
+            PROXY_DN_CACHE_HITS.increment();
+        }
+        return proxyDN;
+    }
+    
+    private String buildNormalizedProxyDNUncached(Config c, String subjectDN, String issuerDN, String proxiedSubjectDNs, String proxiedIssuerDNs) {
+        StringBuilder sb = new StringBuilder(estimateProxyDNLength(subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs));
+        return appendNormalizedProxyDNUncached(c, sb, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs).toString();
+    }
+    
+    /**
+     * Append the normalized proxy DN, as built by {@link #buildNormalizedProxyDN(String, String, String, String)}, to the builder.
+     * <p>
+     * If the chain is invalid, the builder is restored to its original length before the exception is thrown.
+     *
+     * @return the builder
+     */
+    public StringBuilder appendNormalizedProxyDN(StringBuilder sb, String subjectDN, String issuerDN, String proxiedSubjectDNs, String proxiedIssuerDNs) {
+        Config c = config;
+        if (c.proxyDnCache != null)
+            return sb.append(buildNormalizedProxyDN(c, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs));
+        
+        int length = sb.length();
+        sb.ensureCapacity(length + estimateProxyDNLength(subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs));
+        try {
+            return appendNormalizedProxyDNUncached(c, sb, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs);
+        } catch (RuntimeException e) {
+            sb.setLength(length);
+            throw e;
+        }
+    }
+    
+    private StringBuilder appendNormalizedProxyDNUncached(Config c, StringBuilder sb, String subjectDN, String issuerDN, String proxiedSubjectDNs,
+                    String proxiedIssuerDNs) {
+        try {
+            normalizeChain(c, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs, new ProxyDNWriter(sb));
+        } catch (IOException impossible) {
+            throw new AssertionError(impossible);
+        }
+        return sb;
+    }
+    
+    /**
+     * Append the normalized proxy DN, as built by {@link #buildNormalizedProxyDN(String, String, String, String)}, to the appendable.
+     * <p>
+     * The DNs are appended as they are normalized, so if the chain is invalid, part of it may have been appended before the exception is thrown.
+     *
+     * @return the appendable
+     * @throws IOException
+     *             if the appendable throws one
+     */
+    public <A extends Appendable> A appendNormalizedProxyDN(A appendable, String subjectDN, String issuerDN, String proxiedSubjectDNs, String proxiedIssuerDNs)
+                    throws IOException {
+        Config c = config;
+        if (c.proxyDnCache != null) {
+            appendable.append(buildNormalizedProxyDN(c, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs));
+        } else {
+            normalizeChain(c, subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs, new ProxyDNWriter(appendable));
+        }
+        return appendable;
+    }
+    
+    /**
+     * Build the normalized proxy DN, as {@link #buildNormalizedProxyDN(String, String, String, String)} does, encoded as UTF-8 for use as a key.
+     *
+     * @return the UTF-8 bytes of the proxy DN
+     */
+    public byte[] buildNormalizedProxyDNBytes(String subjectDN, String issuerDN, String proxiedSubjectDNs, String proxiedIssuerDNs) {
+        return buildNormalizedProxyDN(subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * A guess at the length of a proxy DN, so that it can usually be built without growing the buffer. Normalization adds a space after each comma, and each
+     * DN after the first adds a pair of brackets.
+     */
+    private static int estimateProxyDNLength(String... dns) {
+        int length = 0;
+        for (String dn : dns) {
+            if (dn != null) {
+                length += dn.length() + (dn.length() >> 3) + 2;
+            }
+        }
+        return length;
+    }
+    
+    /**
+     * Appends DNs in the proxy DN format: the first one as is, and each one after it in brackets.
+     */
+    private static final class ProxyDNWriter implements DNSink<IOException> {
+        private final Appendable appendable;
+        private boolean empty = true;
+        
+        private ProxyDNWriter(Appendable appendable) {
+            this.appendable = appendable;
+        }
+        
+        @Override
+        public void accept(String dn) throws IOException {
+            // an empty leading DN leaves nothing to bracket the next one against, the same as checking the length of the result
+            if (empty) {
+                appendable.append(dn);
+                empty = dn.isEmpty();
+            } else {
+                appendable.append('<').append(dn).append('>');
+            }
         }
-        return sb.toString();
     }
     
     public static String buildNormalizedProxyDN(List<SubjectIssuerDNPair> dns) {
-        StringBuilder sb = new StringBuilder();
-        dns.stream().forEach(dn -> {
-            if (sb.length() == 0) {
+        return appendNormalizedProxyDN(new StringBuilder(estimateProxyDNLength(dns)), dns).toString();
+    }
+    
+    /**
+     * Append the normalized proxy DN, as built by {@link #buildNormalizedProxyDN(List)}, to the builder.
+     *
+     * @return the builder
+     */
+    public static StringBuilder appendNormalizedProxyDN(StringBuilder sb, List<SubjectIssuerDNPair> dns) {
+        boolean first = true;
+        for (SubjectIssuerDNPair dn : dns) {
+            if (first) {
                 sb.append(normalizeDN(dn.subjectDN()));
+                first = false;
             } else {
                 sb.append('<').append(normalizeDN(dn.subjectDN())).append('>');
             }
             sb.append('<').append(normalizeDN(dn.issuerDN())).append('>');
-        });
-        return sb.toString();
+        }
+        return sb;
+    }
+    
+    private static int estimateProxyDNLength(List<SubjectIssuerDNPair> dns) {
+        int length = 0;
+        for (SubjectIssuerDNPair dn : dns) {
+            length += estimateProxyDNLength(dn.subjectDN(), dn.issuerDN());
+        }
+        return length;
     }
     
     public static String getCommonName(String dn) {
@@ -98,7 +467,105 @@ public class DnUtils {
     }
     
     public boolean isServerDN(String dn) {
-        return isNPE(dn);
+        return isServerDN(config, dn);
+    }
+    
+    private static boolean isServerDN(Config c, String dn) {
+        // without the cache there is no point in parsing anything but the OUs
+        if (c.parsedDnCache == null || dn == null)
+            return c.npeOuMatcher.isNPE(dn);
+        
+        return parseDN(c, dn).isNPE();
+    }
+    
+    /**
+     * Parse a DN into its components. Every spelling of a DN, e.g. with a different case or spacing, is parsed in its normalized form, so they all
+     * yield the same {@link ParsedDN}, with the components of the normalized DN. Recently parsed DNs are cached, so the same DN seen again, by this or any
+     * other request and in any spelling, is neither parsed again nor held in memory twice.
+     *
+     * @param dn
+     *            the DN
+     * @return the parsed DN
+     */
+    public ParsedDN parseDN(String dn) {
+        return parseDN(config, dn);
+    }
+    
+    private static ParsedDN parseDN(Config c, String dn) {
+        if (c.parsedDnCache == null)
+            return newParsedDN(c, normalize(c, dn));
+        
+        // a spelling seen before is found without normalizing it again
+        ParsedDN parsed = c.parsedDnCache.getIfPresent(dn);
+        if (parsed == null) {
+            String normalized = normalize(c, dn);
+            parsed = normalized.equals(dn) ? null : c.parsedDnCache.getIfPresent(normalized);
+            if (parsed == null) {
+                // a race here only means that the DN may be parsed twice
+                PARSED_DN_CACHE_MISSES.increment();
+                parsed = newParsedDN(c, normalized);
+                c.parsedDnCache.put(normalized, parsed);
+            } else {
+                PARSED_DN_CACHE_HITS.increment();
+            }
+            if (!normalized.equals(dn)) {
+                c.parsedDnCache.put(dn, parsed);
+            }
+        } else {
+            PARSED_DN_CACHE_HITS.increment();
+        }
+        return parsed;
+    }
+    
+    /**
+     * Derives everything in the {@link ParsedDN} with the same helpers that {@link #getCommonName(String)}, {@link #getOrganizationalUnits(String)} and
+     * {@link #getShortName(String)} use, so that the two cannot disagree. The cache makes this a one time cost for each DN.
+     */
+    private static ParsedDN newParsedDN(Config c, String normalizedDN) {
+        String[] ous = ProxiedEntityUtils.getOrganizationalUnits(normalizedDN);
+        return new ParsedDN(normalizedDN, ProxiedEntityUtils.getCommonName(normalizedDN), ous, ProxiedEntityUtils.getShortName(normalizedDN), isNPE(c, ous));
+    }
+    
+    /**
+     * @return the number of {@link #parseDN(String)} and {@link #isServerDN(String)} calls answered from the parsed DN cache, or 0 if it is disabled
+     */
+    public long getParsedDnCacheHitCount() {
+        return config.parsedDnStats().hitCount();
+    }
+    
+    /**
+     * @return the number of {@link #parseDN(String)} and {@link #isServerDN(String)} calls that had to parse the DN, or 0 if the cache is disabled
+     */
+    public long getParsedDnCacheMissCount() {
+        return config.parsedDnStats().missCount();
+    }
+    
+    /**
+     * @return the number of DN normalizations answered from the DN cache, or 0 if it is disabled
+     */
+    public long getDnCacheHitCount() {
+        return config.dnStats().hitCount();
+    }
+    
+    /**
+     * @return the number of DN normalizations that missed the DN cache, or 0 if it is disabled
+     */
+    public long getDnCacheMissCount() {
+        return config.dnStats().missCount();
+    }
+    
+    /**
+     * @return the number of {@link #buildNormalizedProxyDN(String, String, String, String)} calls answered from the proxy DN cache, or 0 if it is disabled
+     */
+    public long getProxyDnCacheHitCount() {
+        return config.proxyDnStats().hitCount();
+    }
+    
+    /**
+     * @return the number of {@link #buildNormalizedProxyDN(String, String, String, String)} calls that missed the proxy DN cache, or 0 if it is disabled
+     */
+    public long getProxyDnCacheMissCount() {
+        return config.proxyDnStats().missCount();
     }
     
     public String getUserDN(String[] dns) {
@@ -109,9 +576,10 @@ public class DnUtils {
         if (issuerDNs && (dns.length % 2) != 0)
             throw new IllegalArgumentException("DNs array is not a subject/issuer DN list: " + Arrays.toString(dns));
         
+        Config c = config;
         for (int i = 0; i < dns.length; i += (issuerDNs) ? 2 : 1) {
             String dn = dns[i];
-            if (!isServerDN(dn))
+            if (!isServerDN(c, dn))
                 return dn;
         }
         return null;
@@ -125,13 +593,118 @@ public class DnUtils {
         return ProxiedEntityUtils.normalizeDN(userName);
     }
     
-    private boolean isNPE(String dn) {
-        String[] ouList = ProxiedEntityUtils.getOrganizationalUnits(dn);
+    private static boolean isNPE(Config c, String[] ouList) {
         for (String ou : ouList) {
-            if (npeOuList.contains(ou.toUpperCase())) {
+            if (c.npeOuMatcher.matches(ou)) {
                 return true;
             }
         }
         return false;
     }
+    
+    /**
+     * An immutable snapshot of everything that depends on the configuration: the compiled subject DN pattern, the NPE OU matcher, and the caches of what was
+     * computed with them.
+     */
+    private static final class Config {
+        /** Finds subject DNs passed as issuer DNs, with a direct scan when the configured pattern allows it */
+        private final SubjectDnMatcher subjectDnMatcher;
+        
+        /** Matches the NPE OU identifiers */
+        private final NpeOuMatcher npeOuMatcher;
+        
+        /** Recently parsed DNs, which also answer {@link #isServerDN(String)}, or null if disabled */
+        private final BoundedCache<String,ParsedDN> parsedDnCache;
+        
+        /** The normalized forms of recently seen raw DNs, or null if disabled */
+        private final BoundedCache<String,NormalizedDN> dnCache;
+        
+        /** Recently built proxy DNs, or null if disabled */
+        private final BoundedCache<ProxyDNKey,String> proxyDnCache;
+        
+        // the statistics of the caches of the configurations this one replaced
+        private final CacheStats retiredParsedDnStats;
+        private final CacheStats retiredDnStats;
+        private final CacheStats retiredProxyDnStats;
+        
+        private Config(Pattern subjectDnPattern, NpeOuMatcher npeOuMatcher, int parsedDnCacheSize, int dnCacheSize, Duration dnCacheTtl, Config previous) {
+            this.subjectDnMatcher = SubjectDnMatcher.compile(subjectDnPattern);
+            this.npeOuMatcher = npeOuMatcher;
+            this.parsedDnCache = (parsedDnCacheSize > 0) ? BoundedCache.builder().maximumSize(parsedDnCacheSize).build() : null;
+            if (dnCacheSize > 0) {
+                this.dnCache = newDnCache(dnCacheSize, dnCacheTtl);
+                this.proxyDnCache = newDnCache(dnCacheSize, dnCacheTtl);
+            } else {
+                this.dnCache = null;
+                this.proxyDnCache = null;
+            }
+            this.retiredParsedDnStats = (previous == null) ? CacheStats.EMPTY : previous.parsedDnStats();
+            this.retiredDnStats = (previous == null) ? CacheStats.EMPTY : previous.dnStats();
+            this.retiredProxyDnStats = (previous == null) ? CacheStats.EMPTY : previous.proxyDnStats();
+        }
+        
+        private CacheStats parsedDnStats() {
+            return retiredParsedDnStats.plus(stats(parsedDnCache));
+        }
+        
+        private CacheStats dnStats() {
+            return retiredDnStats.plus(stats(dnCache));
+        }
+        
+        private CacheStats proxyDnStats() {
+            return retiredProxyDnStats.plus(stats(proxyDnCache));
+        }
+        
+        private static CacheStats stats(BoundedCache<?,?> cache) {
+            return (cache == null) ? CacheStats.EMPTY : cache.stats();
+        }
+    }
+    
+    /**
+     * A normalized DN, along with the form that has any unescaped {@code <} or {@code >} escaped for use in a proxy DN.
+     */
+    private static final class NormalizedDN {
+        private final String normalized;
+        private final String escaped;
+        
+        private NormalizedDN(String normalized) {
+            this.normalized = normalized;
+            this.escaped = ProxiedDNChain.escape(normalized);
+        }
+    }
+    
+    /**
+     * The arguments of {@link #buildNormalizedProxyDN(String, String, String, String)}, any of which may be null.
+     */
+    private static final class ProxyDNKey {
+        private final String subjectDN;
+        private final String issuerDN;
+        private final String proxiedSubjectDNs;
+        private final String proxiedIssuerDNs;
+        private final int hashCode;
+        
+        private ProxyDNKey(String subjectDN, String issuerDN, String proxiedSubjectDNs, String proxiedIssuerDNs) {
+            this.subjectDN = subjectDN;
+            this.issuerDN = issuerDN;
+            this.proxiedSubjectDNs = proxiedSubjectDNs;
+            this.proxiedIssuerDNs = proxiedIssuerDNs;
+            this.hashCode = Objects.hash(subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof ProxyDNKey))
+                return false;
+            ProxyDNKey other = (ProxyDNKey) o;
+            return Objects.equals(subjectDN, other.subjectDN) && Objects.equals(issuerDN, other.issuerDN)
+                            && Objects.equals(proxiedSubjectDNs, other.proxiedSubjectDNs) && Objects.equals(proxiedIssuerDNs, other.proxiedIssuerDNs);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -0,0 +1,57 @@
+package datawave.microservice.security.util;
+
+import java.util.Collection;
+
+/**
+ * Decides whether an OU identifies a non-person entity (NPE). {@link DnUtils} uses one of these to classify DNs; {@link #compile(Collection)} builds the
+ * default one from the configured list of NPE OUs, and a different implementation can be passed to the {@link DnUtils} constructor instead.
+ */
+public interface NpeOuMatcher {
+    
+    /**
+     * Whether the OU value in the given range of the text is an NPE OU. Implementations should not need to extract the range.
+     *
+     * @param text
+     *            the text containing the OU value, e.g. a whole DN
+     * @param start
+     *            the start of the OU value
+     * @param end
+     *            the end (exclusive) of the OU value
+     * @return true if the OU identifies a non-person entity
+     */
+    boolean matches(CharSequence text, int start, int end);
+    
+    /**
+     * Whether the OU is an NPE OU.
+     *
+     * @param ou
+     *            the OU value
+     * @return true if the OU identifies a non-person entity
+     */
+    default boolean matches(CharSequence ou) {
+        return matches(ou, 0, ou.length());
+    }
+    
+    /**
+     * Whether any of the OUs in the DN is an NPE OU. The OUs are found the same way {@link DnUtils#getOrganizationalUnits(String)} finds them, but are matched
+     * in place in the DN where possible.
+     *
+     * @param dn
+     *            the DN
+     * @return true if the DN identifies a non-person entity
+     */
+    default boolean isNPE(String dn) {
+        return DnOuScanner.anyMatch(dn, this);
+    }
+    
+    /**
+     * Build the default matcher, which compares OUs without regard to case using a trie built from the list.
+     *
+     * @param npeOus
+     *            the OUs that identify a non-person entity
+     * @return the matcher
+     */
+    static NpeOuMatcher compile(Collection<String> npeOus) {
+        return new TrieNpeOuMatcher(npeOus);
+    }
+}
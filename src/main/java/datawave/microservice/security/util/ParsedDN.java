@@ -0,0 +1,82 @@
+package datawave.microservice.security.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A normalized DN along with the components that {@link DnUtils} would otherwise parse out of it on every call. Instances are immutable and are produced, and
+ * shared by every spelling of the same DN, by {@link DnUtils#parseDN(String)}.
+ */
+public final class ParsedDN {
+    
+    private final String normalizedDN;
+    private final String commonName;
+    private final List<String> organizationalUnits;
+    private final String shortName;
+    private final boolean npe;
+    
+    ParsedDN(String normalizedDN, String commonName, String[] organizationalUnits, String shortName, boolean npe) {
+        this.normalizedDN = normalizedDN;
+        this.commonName = commonName;
+        this.organizationalUnits = Collections.unmodifiableList(Arrays.asList(organizationalUnits));
+        this.shortName = shortName;
+        this.npe = npe;
+    }
+    
+    /**
+     * @return the DN as normalized by {@link DnUtils#normalizeDN(String)}
+     */
+    public String getNormalizedDN() {
+        return normalizedDN;
+    }
+    
+    /**
+     * @return the CN of the normalized DN, as returned by {@link DnUtils#getCommonName(String)}, which may be null
+     */
+    public String getCommonName() {
+        return commonName;
+    }
+    
+    /**
+     * @return the OUs of the normalized DN, as returned by {@link DnUtils#getOrganizationalUnits(String)}
+     */
+    public List<String> getOrganizationalUnits() {
+        return organizationalUnits;
+    }
+    
+    /**
+     * @return the short name of the normalized DN, as returned by {@link DnUtils#getShortName(String)}
+     */
+    public String getShortName() {
+        return shortName;
+    }
+    
+    /**
+     * @return true if one of the OUs identifies a non-person entity, as {@link DnUtils#isServerDN(String)} reports
+     */
+    public boolean isNPE() {
+        return npe;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof ParsedDN))
+            return false;
+        ParsedDN other = (ParsedDN) o;
+        // everything else is derived from the DN
+        return normalizedDN.equals(other.normalizedDN) && npe == other.npe;
+    }
+    
+    @Override
+    public int hashCode() {
+        return normalizedDN.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        return normalizedDN;
+    }
+}
@@ -0,0 +1,149 @@
+package datawave.microservice.security.util;
+
+/**
+ * Scans proxied DN chains in the {@code dn1<dn2><dn3>} or {@code <dn1><dn2><dn3>} format in place, without the regular expressions that
+ * {@link datawave.security.util.ProxiedEntityUtils#splitProxiedDNs(String, boolean)} uses, so that the only thing allocated is the substring for each
+ * element.
+ * <p>
+ * Only canonical chains are scanned: every element must be non-blank, must not start or end with whitespace, and the chain must not contain any backslash
+ * (i.e. no escaped brackets) or any text after the last element. {@link #count(String)} returns -1 for anything else, and the caller is expected to fall back
+ * to {@code splitProxiedDNs}, which remains the definition of how such chains are split.
+ * <p>
+ * A chain is walked with {@link #firstStart(String)}, {@link #end(String, int)} and {@link #nextStart(String, int)}:
+ *
+ * <pre>
+ * int start = firstStart(chain);
+ * while (start &lt; chain.length()) {
+ *     int end = end(chain, start);
+ *     String dn = chain.substring(start, end);
+ *     start = nextStart(chain, end);
+ * }
+ * </pre>
+ */
+final class ProxiedDNChain {
+    
+    private ProxiedDNChain() {}
+    
+    /**
+     * Count the elements of a canonical chain.
+     *
+     * @param chain
+     *            the proxied DN chain
+     * @return the number of elements, or -1 if the chain is not canonical
+     */
+    static int count(String chain) {
+        int length = chain.length();
+        if (chain.indexOf('<') < 0) {
+            // a single DN, which is returned as is; leave anything unusual to splitProxiedDNs
+            return (length > 0 && chain.indexOf('>') < 0 && chain.indexOf('\\') < 0 && isTrimmed(chain, 0, length)) ? 1 : -1;
+        }
+        int count = 0;
+        int pos = 0;
+        if (chain.charAt(0) != '<') {
+            // the leading DN, without brackets
+            int end = chain.indexOf('<');
+            if (!isElement(chain, 0, end)) {
+                return -1;
+            }
+            count++;
+            pos = end;
+        }
+        while (pos < length) {
+            // each remaining DN is bracketed
+            if (chain.charAt(pos) != '<') {
+                return -1;
+            }
+            int end = chain.indexOf('>', pos + 1);
+            if (end < 0 || !isElement(chain, pos + 1, end)) {
+                return -1;
+            }
+            count++;
+            pos = end + 1;
+        }
+        return count;
+    }
+    
+    /**
+     * @return the start of the first element of a canonical chain
+     */
+    static int firstStart(String chain) {
+        return (!chain.isEmpty() && chain.charAt(0) == '<') ? 1 : 0;
+    }
+    
+    /**
+     * @return the end (exclusive) of the element of a canonical chain that starts at the given index
+     */
+    static int end(String chain, int start) {
+        for (int i = start; i < chain.length(); i++) {
+            char c = chain.charAt(i);
+            if (c == '<' || c == '>') {
+                return i;
+            }
+        }
+        return chain.length();
+    }
+    
+    /**
+     * @return the start of the element of a canonical chain that follows the element ending at the given index, or the length of the chain if there are no
+     *         more elements
+     */
+    static int nextStart(String chain, int end) {
+        if (end >= chain.length()) {
+            return chain.length();
+        }
+        // either the '<' after the leading DN, or the "><" between bracketed DNs
+        int start = (chain.charAt(end) == '<') ? end + 1 : end + 2;
+        return Math.min(start, chain.length());
+    }
+    
+    /**
+     * Escape each {@code <} and {@code >} that is not already preceded by a backslash. This is the same as
+     * {@code dn.replaceAll("(?<!\\\\)([<>])", "\\\\$1")}, without compiling a pattern, and returns the DN itself when there is nothing to escape.
+     *
+     * @param dn
+     *            the DN
+     * @return the escaped DN
+     */
+    static String escape(String dn) {
+        int length = dn.length();
+        int i = 0;
+        while (i < length && !needsEscape(dn, i)) {
+            i++;
+        }
+        if (i == length) {
+            return dn;
+        }
+        StringBuilder sb = new StringBuilder(length + 4);
+        sb.append(dn, 0, i);
+        for (; i < length; i++) {
+            if (needsEscape(dn, i)) {
+                sb.append('\\');
+            }
+            sb.append(dn.charAt(i));
+        }
+        return sb.toString();
+    }
+    
+    private static boolean needsEscape(String dn, int i) {
+        char c = dn.charAt(i);
+        return (c == '<' || c == '>') && (i == 0 || dn.charAt(i - 1) != '\\');
+    }
+    
+    private static boolean isElement(String chain, int start, int end) {
+        if (end <= start || !isTrimmed(chain, start, end)) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = chain.charAt(i);
+            if (c == '<' || c == '>' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isTrimmed(String chain, int start, int end) {
+        // the same definition of whitespace as String.trim
+        return chain.charAt(start) > ' ' && chain.charAt(end - 1) > ' ';
+    }
+}
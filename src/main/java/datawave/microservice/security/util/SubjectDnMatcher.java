@@ -0,0 +1,181 @@
+package datawave.microservice.security.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs {@link Matcher#find()} for the subject DN pattern that {@link DnUtils} checks every issuer DN against, using a direct character scan when the pattern
+ * has one of the common shapes:
+ * <ul>
+ * <li>a literal, e.g. {@code OU=My Department} or any pattern compiled with {@link Pattern#LITERAL}</li>
+ * <li>a single component, e.g. {@code (?:^|,)\s*OU\s*=\s*My Department\s*(?:,|$)}, where the attribute name and value are literals</li>
+ * </ul>
+ * Only the {@link Pattern#CASE_INSENSITIVE} flag (which on its own folds US-ASCII case only) is supported by the scan. Any other pattern or flag falls back to
+ * the regular expression.
+ */
+final class SubjectDnMatcher {
+    
+    // a literal as Pattern reads it outside of a character class, without leading or trailing spaces
+    private static final String LITERAL = "([^.^$|?*+()\\[\\]{}\\\\\\s](?:[^.^$|?*+()\\[\\]{}\\\\]*[^.^$|?*+()\\[\\]{}\\\\\\s])?)";
+    private static final Pattern LITERAL_SHAPE = Pattern.compile("(?:\\(\\?i\\))?" + LITERAL);
+    private static final Pattern COMPONENT_SHAPE = Pattern.compile(
+                    "(?:\\(\\?i\\))?\\((?:\\?:)?\\^\\|,\\)\\\\s\\*" + LITERAL + "\\\\s\\*=\\\\s\\*" + LITERAL + "\\\\s\\*\\((?:\\?:)?,\\|\\$\\)");
+    
+    private final Pattern pattern;
+    private final boolean caseInsensitive;
+    
+    // the literal to find, or the attribute name and value of the component to find
+    private final String literal;
+    private final String name;
+    private final String value;
+    
+    private SubjectDnMatcher(Pattern pattern, boolean caseInsensitive, String literal, String name, String value) {
+        this.pattern = pattern;
+        this.caseInsensitive = caseInsensitive;
+        this.literal = literal;
+        this.name = name;
+        this.value = value;
+    }
+    
+    static SubjectDnMatcher compile(Pattern pattern) {
+        int flags = pattern.flags();
+        String regex = pattern.pattern();
+        boolean caseInsensitive = (flags & Pattern.CASE_INSENSITIVE) != 0 || regex.startsWith("(?i)");
+        
+        if ((flags & ~(Pattern.CASE_INSENSITIVE | Pattern.LITERAL)) == 0) {
+            if ((flags & Pattern.LITERAL) != 0) {
+                return new SubjectDnMatcher(pattern, (flags & Pattern.CASE_INSENSITIVE) != 0, regex, null, null);
+            }
+            Matcher shape = LITERAL_SHAPE.matcher(regex);
+            if (shape.matches() && isPrintableAscii(regex)) {
+                return new SubjectDnMatcher(pattern, caseInsensitive, shape.group(1), null, null);
+            }
+            shape = COMPONENT_SHAPE.matcher(regex);
+            if (shape.matches() && isPrintableAscii(regex)) {
+                return new SubjectDnMatcher(pattern, caseInsensitive, null, shape.group(1), shape.group(2));
+            }
+        }
+        return new SubjectDnMatcher(pattern, false, null, null, null);
+    }
+    
+    /**
+     * @return true if {@link #find(String)} scans the text directly instead of running the regular expression
+     */
+    boolean isDirectScan() {
+        return literal != null || name != null;
+    }
+    
+    /**
+     * @return the same result as {@code pattern.matcher(text).find()}
+     */
+    boolean find(String text) {
+        if (literal != null) {
+            return indexOf(text, literal, 0) >= 0;
+        }
+        if (name != null) {
+            return findComponent(text);
+        }
+        return pattern.matcher(text).find();
+    }
+    
+    private boolean findComponent(String text) {
+        int length = text.length();
+        int start = 0;
+        while (true) {
+            if (matchesComponent(text, start, length)) {
+                return true;
+            }
+            int comma = text.indexOf(',', start);
+            if (comma < 0) {
+                return false;
+            }
+            start = comma + 1;
+        }
+    }
+    
+    /**
+     * Match {@code \s*name\s*=\s*value\s*(?:,|$)} at the given position.
+     */
+    private boolean matchesComponent(String text, int pos, int length) {
+        pos = skipWhitespace(text, pos, length);
+        if (!regionMatches(text, pos, name)) {
+            return false;
+        }
+        pos = skipWhitespace(text, pos + name.length(), length);
+        if (pos >= length || text.charAt(pos) != '=') {
+            return false;
+        }
+        pos = skipWhitespace(text, pos + 1, length);
+        if (!regionMatches(text, pos, value)) {
+            return false;
+        }
+        pos = skipWhitespace(text, pos + value.length(), length);
+        return pos == length || text.charAt(pos) == ',' || (pos == length - 1 && isLineTerminator(text.charAt(pos)));
+    }
+    
+    /**
+     * Without {@link Pattern#MULTILINE}, {@code $} also matches before a final line terminator. Those that {@code \s} matches have already been skipped.
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+    
+    private int indexOf(String text, String target, int from) {
+        if (!caseInsensitive) {
+            return text.indexOf(target, from);
+        }
+        for (int i = from; i <= text.length() - target.length(); i++) {
+            if (regionMatches(text, i, target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private boolean regionMatches(String text, int offset, String target) {
+        if (offset + target.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < target.length(); i++) {
+            char a = text.charAt(offset + i);
+            char b = target.charAt(i);
+            if (a != b && !(caseInsensitive && toUpperAscii(a) == toUpperAscii(b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static char toUpperAscii(char c) {
+        return (c >= 'a' && c <= 'z') ? (char) (c - ('a' - 'A')) : c;
+    }
+    
+    /**
+     * The characters that {@code \s} matches, without {@link Pattern#UNICODE_CHARACTER_CLASS}.
+     */
+    private static int skipWhitespace(String text, int pos, int length) {
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != 0x0B && c != '\f' && c != '\r') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+    
+    private static boolean isPrintableAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x20 || c > 0x7E) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    public String toString() {
+        return pattern.toString();
+    }
+}
@@ -0,0 +1,119 @@
+package datawave.microservice.security.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The default {@link NpeOuMatcher}: a trie of the upper cased NPE OUs, flattened into arrays so that matching a range of text walks the trie one character at
+ * a time without extracting or upper casing anything. ASCII characters are folded to upper case directly; a value with any other character is upper cased
+ * with {@link String#toUpperCase()} and looked up in a set instead, the same as DnUtils has always done for every value.
+ */
+final class TrieNpeOuMatcher implements NpeOuMatcher {
+    
+    // the edges of node n are edgeLabels/edgeTargets[edgeStarts[n] .. edgeStarts[n + 1]), sorted by label
+    private final int[] edgeStarts;
+    private final char[] edgeLabels;
+    private final int[] edgeTargets;
+    private final boolean[] terminal;
+    
+    /** All of the upper cased OUs, for values that are not ASCII */
+    private final Set<String> upperCased;
+    
+    TrieNpeOuMatcher(Collection<String> npeOus) {
+        upperCased = new HashSet<>();
+        
+        // build the trie with maps, then flatten it breadth first
+        List<TreeMap<Character,Integer>> children = new ArrayList<>();
+        List<Boolean> ends = new ArrayList<>();
+        children.add(new TreeMap<>());
+        ends.add(false);
+        for (String ou : npeOus) {
+            String upper = ou.toUpperCase();
+            upperCased.add(upper);
+            if (!isAscii(upper, 0, upper.length())) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < upper.length(); i++) {
+                Integer next = children.get(node).get(upper.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.get(node).put(upper.charAt(i), next);
+                    children.add(new TreeMap<>());
+                    ends.add(false);
+                }
+                node = next;
+            }
+            ends.set(node, true);
+        }
+        
+        int nodes = children.size();
+        int edges = nodes - 1;
+        edgeStarts = new int[nodes + 1];
+        edgeLabels = new char[edges];
+        edgeTargets = new int[edges];
+        terminal = new boolean[nodes];
+        int edge = 0;
+        for (int node = 0; node < nodes; node++) {
+            edgeStarts[node] = edge;
+            terminal[node] = ends.get(node);
+            for (Map.Entry<Character,Integer> child : children.get(node).entrySet()) {
+                edgeLabels[edge] = child.getKey();
+                edgeTargets[edge] = child.getValue();
+                edge++;
+            }
+        }
+        edgeStarts[nodes] = edge;
+    }
+    
+    @Override
+    public boolean matches(CharSequence text, int start, int end) {
+        int node = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                return upperCased.contains(text.subSequence(start, end).toString().toUpperCase());
+            }
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            node = child(node, c);
+            if (node < 0) {
+                // the rest of the value still has to be checked for characters that are not ASCII
+                return !isAscii(text, i + 1, end) && upperCased.contains(text.subSequence(start, end).toString().toUpperCase());
+            }
+        }
+        return terminal[node];
+    }
+    
+    private int child(int node, char c) {
+        int low = edgeStarts[node];
+        int high = edgeStarts[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = edgeLabels[mid];
+            if (label < c) {
+                low = mid + 1;
+            } else if (label > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+    
+    private static boolean isAscii(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
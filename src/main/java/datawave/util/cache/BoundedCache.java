@@ -0,0 +1,406 @@
+package datawave.util.cache;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import com.google.common.base.Ticker;
+
+/**
+ * A concurrent cache bounded by size and, optionally, by the time since each entry was written, shared by the helpers of this library ({@code DnUtils},
+ * {@code DowngradedAuthorizationsCache} and {@code CompiledDatePattern}).
+ * <p>
+ * Lookups never lock: they read a {@link ConcurrentHashMap}, set the entry's reference bit and bump an approximate frequency count. Writes lock one of several
+ * segments, each with its own share of the capacity, using a {@link ReentrantLock} rather than {@code synchronized}, so a virtual thread that waits for one is
+ * unmounted instead of pinning its carrier thread.
+ * <p>
+ * Eviction follows W-TinyLFU. A new entry first goes into a small window, about one percent of its segment, which is evicted in insertion order, so a burst
+ * of new keys cannot flush the rest of the cache. An entry leaving the window is admitted to the main region only if it has been seen more often recently, as
+ * estimated by a {@link FrequencySketch}, than the main region's eviction candidate, which is picked by the CLOCK algorithm: entries read since the hand last
+ * passed them get a second chance. Keys that are only ever seen once therefore never displace the ones that are looked up all the time.
+ * <p>
+ * Hits, misses and evictions are always counted, in {@link LongAdder}s; see {@link #stats()}. Expired entries are never returned and are dropped as eviction
+ * reaches them. Keys and values must not be null.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ */
+public final class BoundedCache<K,V> {
+    
+    // a cache is split into no more segments than leaves each of them this many entries
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+    private static final int MAX_SEGMENTS = 1 << 10;
+    
+    private final Segment<K,V>[] segments;
+    private final int segmentShift;
+    private final long ttlNanos;
+    private final Ticker ticker;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    private BoundedCache(Builder<? super K,? super V> builder) {
+        long maximumSize = builder.maximumSize;
+        int count = Math.min(segmentCount(builder.concurrencyLevel), MAX_SEGMENTS);
+        while (count > 1 && maximumSize / count < MIN_SEGMENT_CAPACITY) {
+            count >>= 1;
+        }
+        @SuppressWarnings("unchecked")
+        Segment<K,V>[] s = (Segment<K,V>[]) new Segment<?,?>[count];
+        this.segments = s;
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+        // spread the capacity as evenly as possible, so the segments add up to the maximum size exactly
+        long capacity = Math.min(maximumSize, (long) Integer.MAX_VALUE * count);
+        for (int i = 0; i < count; i++) {
+            int segmentCapacity = (int) (capacity / count + ((i < capacity % count) ? 1 : 0));
+            segments[i] = new Segment<>(this, segmentCapacity);
+        }
+        this.ttlNanos = builder.ttlNanos;
+        this.ticker = builder.ticker;
+    }
+    
+    private static int segmentCount(int concurrencyLevel) {
+        return (concurrencyLevel <= 1) ? 1 : Integer.highestOneBit(concurrencyLevel - 1) << 1;
+    }
+    
+    public static <K,V> Builder<K,V> builder() {
+        return new Builder<>();
+    }
+    
+    /**
+     * @return the value cached for the key, or null if there is none or it has expired
+     */
+    public V getIfPresent(K key) {
+        int hash = hash(key);
+        Segment<K,V> segment = segmentFor(hash);
+        segment.sketch.increment(hash);
+        Node<K,V> node = segment.map.get(key);
+        if (node == null || isExpired(node)) {
+            misses.increment();
+            return null;
+        }
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        hits.increment();
+        return node.value;
+    }
+    
+    /**
+     * Get the value cached for the key, or compute and cache it. The value is computed without holding any lock, so two threads that miss at the same time may
+     * both compute it; the value cached last wins.
+     *
+     * @param key
+     *            the key
+     * @param loader
+     *            computes the value; must not return null
+     * @return the cached or computed value
+     */
+    public V get(K key, Function<? super K,? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value == null) {
+            value = Objects.requireNonNull(loader.apply(key), "The loader returned null");
+            put(key, value);
+        }
+        return value;
+    }
+    
+    public void put(K key, V value) {
+        Objects.requireNonNull(value, "The value must not be null");
+        int hash = hash(key);
+        segmentFor(hash).put(key, hash, value, (ttlNanos < 0) ? Long.MAX_VALUE : ticker.read() + ttlNanos);
+    }
+    
+    public void invalidate(K key) {
+        int hash = hash(key);
+        segmentFor(hash).invalidate(key);
+    }
+    
+    public void invalidateAll() {
+        for (Segment<K,V> segment : segments) {
+            segment.clear();
+        }
+    }
+    
+    /**
+     * @return the number of entries, including any that have expired but not yet been dropped
+     */
+    public long size() {
+        long size = 0;
+        for (Segment<K,V> segment : segments) {
+            size += segment.map.size();
+        }
+        return size;
+    }
+    
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+    
+    private boolean isExpired(Node<K,V> node) {
+        return node.expiresAt != Long.MAX_VALUE && ticker.read() - node.expiresAt >= 0;
+    }
+    
+    private Segment<K,V> segmentFor(int hash) {
+        return (segmentShift == 32) ? segments[0] : segments[hash >>> segmentShift];
+    }
+    
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * @param <K>
+     *            the type of keys
+     * @param <V>
+     *            the type of values
+     */
+    public static final class Builder<K,V> {
+        private long maximumSize = -1;
+        private long ttlNanos = -1;
+        private int concurrencyLevel = 4 * Runtime.getRuntime().availableProcessors();
+        private Ticker ticker = Ticker.systemTicker();
+        
+        private Builder() {}
+        
+        /**
+         * @param maximumSize
+         *            the most entries the cache holds; a cache with a maximum size of 0 holds nothing
+         */
+        public Builder<K,V> maximumSize(long maximumSize) {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException("The maximum size must not be negative: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+        
+        /**
+         * @param ttl
+         *            how long after it was written an entry expires
+         */
+        public Builder<K,V> expireAfterWrite(Duration ttl) {
+            if (ttl == null || ttl.isNegative()) {
+                throw new IllegalArgumentException("The time to live must not be null or negative: " + ttl);
+            }
+            this.ttlNanos = ttl.toNanos();
+            return this;
+        }
+        
+        /**
+         * @param concurrencyLevel
+         *            about how many threads are expected to write at the same time, which sets the number of segments; small caches get fewer
+         */
+        public Builder<K,V> concurrencyLevel(int concurrencyLevel) {
+            if (concurrencyLevel <= 0) {
+                throw new IllegalArgumentException("The concurrency level must be positive: " + concurrencyLevel);
+            }
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+        
+        /**
+         * @param ticker
+         *            the time source for expiration, e.g. a fake one in tests
+         */
+        public Builder<K,V> ticker(Ticker ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+        
+        /**
+         * @return a new cache; its types may be narrower than the builder's, so that {@code BoundedCache.builder().maximumSize(n).build()} can be assigned to a
+         *         cache of any type
+         */
+        public <K1 extends K,V1 extends V> BoundedCache<K1,V1> build() {
+            if (maximumSize < 0) {
+                throw new IllegalStateException("A maximum size is required");
+            }
+            return new BoundedCache<>(this);
+        }
+    }
+    
+    private static final class Node<K,V> {
+        private static final int WINDOW = 0;
+        private static final int MAIN = 1;
+        private static final int DEAD = 2;
+        
+        private final K key;
+        private final int hash;
+        private volatile V value;
+        private volatile long expiresAt;
+        // set by lookups, cleared by the CLOCK hand
+        private volatile boolean referenced;
+        // guarded by the segment's lock
+        private int region = WINDOW;
+        
+        private Node(K key, int hash, V value, long expiresAt) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    private static final class Segment<K,V> {
+        private final BoundedCache<K,V> cache;
+        private final ConcurrentHashMap<K,Node<K,V>> map;
+        private final FrequencySketch sketch;
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        // guarded by the lock; the queues may also hold dead nodes, which are skipped
+        private final ArrayDeque<Node<K,V>> window = new ArrayDeque<>();
+        private final ArrayDeque<Node<K,V>> main = new ArrayDeque<>();
+        private final int windowCapacity;
+        private final int mainCapacity;
+        private int windowSize;
+        private int mainSize;
+        
+        private Segment(BoundedCache<K,V> cache, int capacity) {
+            this.cache = cache;
+            this.map = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+            this.sketch = new FrequencySketch(capacity);
+            this.windowCapacity = (capacity == 0) ? 0 : Math.max(1, capacity / 100);
+            this.mainCapacity = capacity - windowCapacity;
+        }
+        
+        private void put(K key, int hash, V value, long expiresAt) {
+            if (windowCapacity == 0) {
+                return;
+            }
+            lock.lock();
+            try {
+                Node<K,V> node = map.get(key);
+                if (node != null) {
+                    node.expiresAt = expiresAt;
+                    node.value = value;
+                    return;
+                }
+                node = new Node<>(key, hash, value, expiresAt);
+                map.put(key, node);
+                window.addLast(node);
+                windowSize++;
+                sketch.ensureCapacity(windowSize + mainSize);
+                evict();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void invalidate(K key) {
+            lock.lock();
+            try {
+                Node<K,V> node = map.remove(key);
+                if (node != null) {
+                    kill(node);
+                    // drop the dead nodes once they outnumber the live ones
+                    if (window.size() > 2 * windowSize + 16) {
+                        window.removeIf(n -> n.region == Node.DEAD);
+                    }
+                    if (main.size() > 2 * mainSize + 16) {
+                        main.removeIf(n -> n.region == Node.DEAD);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void clear() {
+            lock.lock();
+            try {
+                for (Node<K,V> node : map.values()) {
+                    node.region = Node.DEAD;
+                }
+                map.clear();
+                window.clear();
+                main.clear();
+                windowSize = 0;
+                mainSize = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void evict() {
+            while (windowSize > windowCapacity) {
+                Node<K,V> candidate = pollLive(window);
+                windowSize--;
+                if (cache.isExpired(candidate)) {
+                    drop(candidate);
+                    continue;
+                }
+                if (mainSize < mainCapacity) {
+                    candidate.region = Node.MAIN;
+                    main.addLast(candidate);
+                    mainSize++;
+                    continue;
+                }
+                Node<K,V> victim = selectVictim();
+                if (victim == null) {
+                    drop(candidate);
+                } else if (sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                    mainSize--;
+                    drop(victim);
+                    candidate.region = Node.MAIN;
+                    main.addLast(candidate);
+                    mainSize++;
+                } else {
+                    // the victim stays next in line
+                    main.addFirst(victim);
+                    drop(candidate);
+                }
+            }
+        }
+        
+        /**
+         * @return the main region's eviction candidate, removed from the queue, or null if the region is empty. Expired entries found on the way are dropped.
+         */
+        private Node<K,V> selectVictim() {
+            while (mainSize > 0) {
+                Node<K,V> node = pollLive(main);
+                if (cache.isExpired(node)) {
+                    mainSize--;
+                    drop(node);
+                } else if (node.referenced) {
+                    node.referenced = false;
+                    main.addLast(node);
+                } else {
+                    return node;
+                }
+            }
+            return null;
+        }
+        
+        private Node<K,V> pollLive(ArrayDeque<Node<K,V>> queue) {
+            Node<K,V> node = queue.pollFirst();
+            while (node.region == Node.DEAD) {
+                node = queue.pollFirst();
+            }
+            return node;
+        }
+        
+        private void drop(Node<K,V> node) {
+            node.region = Node.DEAD;
+            map.remove(node.key, node);
+            cache.evictions.increment();
+        }
+        
+        private void kill(Node<K,V> node) {
+            if (node.region == Node.WINDOW) {
+                windowSize--;
+            } else if (node.region == Node.MAIN) {
+                mainSize--;
+            }
+            node.region = Node.DEAD;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package datawave.util.cache;
+
+/**
+ * An immutable snapshot of the statistics of a {@link BoundedCache}.
+ */
+public final class CacheStats {
+    
+    public static final CacheStats EMPTY = new CacheStats(0, 0, 0);
+    
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    
+    public CacheStats(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+    
+    public long hitCount() {
+        return hitCount;
+    }
+    
+    public long missCount() {
+        return missCount;
+    }
+    
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+    
+    /**
+     * @return the fraction of lookups that found an entry, or 1 if there have been none
+     */
+    public double hitRate() {
+        long requestCount = requestCount();
+        return (requestCount == 0) ? 1.0 : (double) hitCount / requestCount;
+    }
+    
+    /**
+     * @return the number of entries dropped because the cache was full or their time to live was up
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+    
+    /**
+     * @return the sum of these statistics and the others, e.g. to carry statistics over from a cache that was replaced
+     */
+    public CacheStats plus(CacheStats other) {
+        return new CacheStats(hitCount + other.hitCount, missCount + other.missCount, evictionCount + other.evictionCount);
+    }
+    
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount + "}";
+    }
+}
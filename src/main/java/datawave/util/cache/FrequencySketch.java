@@ -0,0 +1,122 @@
+package datawave.util.cache;
+
+/**
+ * An approximate count of how often each key has been seen recently, used by {@link BoundedCache} to decide whether a new entry is worth more than the entry
+ * it would evict. It is a count-min sketch of four bit counters, four of them per key, sixteen to a {@code long}; the estimate for a key is the smallest of
+ * its counters. Once the number of increments reaches ten times the capacity every counter is halved, so old popularity fades.
+ * <p>
+ * The table has one {@code long} per entry of the capacity, but a large one starts at 1024 and grows as the cache fills, so a large cache that only ever holds a
+ * few entries does not pay for a full size table. A key's index in the larger table has the same low bits as its index in the smaller one, so growing copies each
+ * counter to every slot that maps onto it: no estimate goes down, and one may only go up by the collisions it already had.
+ * <p>
+ * Counters are updated without locks or atomic operations. An increment lost to a concurrent one, or to a concurrent halving, only makes an estimate a
+ * little lower, which the admission decision tolerates.
+ */
+final class FrequencySketch {
+    
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAXIMUM = 15;
+    
+    // 8KB; smaller tables are allocated at full size, larger ones start here
+    private static final int INITIAL_SIZE = 1 << 10;
+    
+    private final int maximumTableSize;
+    private final int sampleSize;
+    private volatile long[] table;
+    private int additions;
+    
+    /**
+     * @param capacity
+     *            the number of entries the cache holds
+     */
+    FrequencySketch(int capacity) {
+        this.maximumTableSize = tableSize(capacity);
+        this.sampleSize = 10 * Math.max(capacity, 1);
+        this.table = new long[Math.min(INITIAL_SIZE, maximumTableSize)];
+    }
+    
+    private static int tableSize(int size) {
+        return (size <= 8) ? 8 : Integer.highestOneBit(Math.min(size, 1 << 29) - 1) << 1;
+    }
+    
+    private void resize(long[] t, int size) {
+        long[] resized = new long[size];
+        int mask = t.length - 1;
+        for (int i = 0; i < size; i++) {
+            resized[i] = t[i & mask];
+        }
+        this.table = resized;
+    }
+    
+    /**
+     * Grow the table, if it is smaller than the number of entries the cache holds and not yet at its maximum size. Called by the cache while it holds the
+     * segment's lock.
+     *
+     * @param size
+     *            the number of entries the cache holds
+     */
+    void ensureCapacity(int size) {
+        long[] t = table;
+        if (size > t.length && t.length < maximumTableSize) {
+            resize(t, Math.min(Math.max(tableSize(size), t.length << 1), maximumTableSize));
+        }
+    }
+    
+    /**
+     * @return the estimated number of times the key has been seen, at most 15
+     */
+    int frequency(int hash) {
+        long[] t = table;
+        int start = (hash & 3) << 2;
+        int frequency = MAXIMUM;
+        for (int i = 0; i < 4; i++) {
+            int counter = (int) ((t[indexOf(t, hash, i)] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, counter);
+        }
+        return frequency;
+    }
+    
+    void increment(int hash) {
+        long[] t = table;
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(t, indexOf(t, hash, i), start + i);
+        }
+        if (added && ++additions >= sampleSize) {
+            reset(t);
+        }
+    }
+    
+    private static boolean incrementAt(long[] t, int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        long word = t[index];
+        if ((word & mask) != mask) {
+            t[index] = word + (1L << offset);
+            return true;
+        }
+        return false;
+    }
+    
+    private void reset(long[] t) {
+        for (int i = 0; i < t.length; i++) {
+            t[i] = (t[i] >>> 1) & RESET_MASK;
+        }
+        additions = sampleSize / 2;
+    }
+    
+    /**
+     * @return the number of {@code long}s in the table, for tests
+     */
+    int tableSize() {
+        return table.length;
+    }
+    
+    private static int indexOf(long[] t, int hash, int depth) {
+        long h = (hash + SEEDS[depth]) * SEEDS[depth];
+        h += h >>> 32;
+        return ((int) h) & (t.length - 1);
+    }
+}
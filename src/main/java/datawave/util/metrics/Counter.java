@@ -0,0 +1,46 @@
+package datawave.util.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, e.g. of cache hits. Obtain one from a {@link MetricRegistry}; a disabled registry hands out a shared counter that ignores
+ * every increment.
+ */
+public final class Counter {
+    
+    static final Counter NOOP = new Counter("noop", false);
+    
+    private final String name;
+    private final boolean enabled;
+    private final LongAdder count = new LongAdder();
+    
+    Counter(String name, boolean enabled) {
+        this.name = name;
+        this.enabled = enabled;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void increment() {
+        if (enabled) {
+            count.increment();
+        }
+    }
+    
+    public void increment(long amount) {
+        if (enabled) {
+            count.add(amount);
+        }
+    }
+    
+    public long count() {
+        return count.sum();
+    }
+    
+    @Override
+    public String toString() {
+        return name + "{count=" + count() + "}";
+    }
+}
@@ -0,0 +1,83 @@
+package datawave.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The distribution of a non-negative value, e.g. the length of a proxied chain. Values are counted in fixed power-of-two buckets, so recording a value is a
+ * few atomic adds and never allocates: bucket 0 holds values of zero or less, and bucket {@code i} holds the values from {@code 2^(i-1)} to {@code 2^i - 1}.
+ * The inclusive upper bounds from {@link #getBucketUpperBound(int)} can be used as the service level objectives of a Micrometer distribution.
+ */
+public final class Histogram {
+    
+    /** The number of buckets, one for zero and one for each bit of a positive long */
+    public static final int BUCKETS = 64;
+    
+    static final Histogram NOOP = new Histogram("noop", false);
+    
+    private final String name;
+    private final boolean enabled;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    
+    Histogram(String name, boolean enabled) {
+        this.name = name;
+        this.enabled = enabled;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void record(long value) {
+        if (enabled) {
+            count.increment();
+            total.add(value);
+            max.accumulate(value);
+            buckets.incrementAndGet(bucket(value));
+        }
+    }
+    
+    public long count() {
+        return count.sum();
+    }
+    
+    public long total() {
+        return total.sum();
+    }
+    
+    public long max() {
+        return max.get();
+    }
+    
+    public double mean() {
+        long n = count();
+        return (n == 0) ? 0.0 : (double) total() / n;
+    }
+    
+    /**
+     * @return the number of recorded values that fell into the given bucket
+     */
+    public long getBucketCount(int bucket) {
+        return buckets.get(bucket);
+    }
+    
+    /**
+     * @return the largest value that falls into the given bucket
+     */
+    public static long getBucketUpperBound(int bucket) {
+        return (bucket == BUCKETS - 1) ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+    
+    static int bucket(long value) {
+        return (value <= 0) ? 0 : 64 - Long.numberOfLeadingZeros(value);
+    }
+    
+    @Override
+    public String toString() {
+        return name + "{count=" + count() + ", total=" + total() + ", max=" + max() + "}";
+    }
+}
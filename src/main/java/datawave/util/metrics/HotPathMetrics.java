@@ -0,0 +1,50 @@
+package datawave.util.metrics;
+
+/**
+ * The registry that the hot paths of this library ({@code DnUtils}, {@code AuthorizationsUtil} and {@code DateHelper}) record their calls, latencies,
+ * failures and cache hits in.
+ * <p>
+ * Metrics are off unless the JVM is started with {@code -Ddatawave.common-utils.metrics.enabled=true}. The setting is read once, when this class is loaded.
+ * When it is off the registry is empty and every meter is a shared no-op, which is held in a static final field at the call site, so an instrumented call
+ * does not even read the clock. When it is on, recording is a handful of atomic adds and does not allocate.
+ * <p>
+ * This library does not depend on Micrometer. A service that does can publish the metrics by visiting the registry once at startup:
+ *
+ * <pre>
+ * HotPathMetrics.registry().accept(new MetricVisitor() {
+ *     public void visitCounter(Counter counter) {
+ *         FunctionCounter.builder(counter.getName(), counter, Counter::count).register(meterRegistry);
+ *     }
+ *
+ *     public void visitTimer(Timer timer) {
+ *         FunctionTimer.builder(timer.getName(), timer, Timer::count, t -&gt; t.totalTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS).register(meterRegistry);
+ *     }
+ * });
+ * </pre>
+ */
+public final class HotPathMetrics {
+    
+    public static final String ENABLED_PROPERTY = "datawave.common-utils.metrics.enabled";
+    
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+    
+    private static final MetricRegistry REGISTRY = new MetricRegistry(ENABLED);
+    
+    private HotPathMetrics() {}
+    
+    public static MetricRegistry registry() {
+        return REGISTRY;
+    }
+    
+    public static Counter counter(String name) {
+        return REGISTRY.counter(name);
+    }
+    
+    public static Timer timer(String name) {
+        return REGISTRY.timer(name);
+    }
+    
+    public static Histogram histogram(String name) {
+        return REGISTRY.histogram(name);
+    }
+}
@@ -0,0 +1,77 @@
+package datawave.util.metrics;
+
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * A named set of {@link Counter}s, {@link Timer}s and {@link Histogram}s. Names follow the Micrometer conventions: lower case words separated by dots, e.g.
+ * {@code datawave.dn.normalize}, and asking for the same name again returns the same meter.
+ * <p>
+ * A disabled registry registers nothing and hands out shared meters that ignore everything recorded with them.
+ */
+public final class MetricRegistry {
+    
+    private final boolean enabled;
+    private final ConcurrentNavigableMap<String,Object> meters = new ConcurrentSkipListMap<>();
+    
+    public MetricRegistry() {
+        this(true);
+    }
+    
+    MetricRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public Counter counter(String name) {
+        return enabled ? register(name, Counter.class, n -> new Counter(n, true)) : Counter.NOOP;
+    }
+    
+    public Timer timer(String name) {
+        return enabled ? register(name, Timer.class, n -> new Timer(n, true)) : Timer.NOOP;
+    }
+    
+    public Histogram histogram(String name) {
+        return enabled ? register(name, Histogram.class, n -> new Histogram(n, true)) : Histogram.NOOP;
+    }
+    
+    private <M> M register(String name, Class<M> type, Function<String,M> factory) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("A meter name must be supplied");
+        }
+        Object meter = meters.computeIfAbsent(name, factory);
+        if (!type.isInstance(meter)) {
+            throw new IllegalArgumentException("Meter " + name + " is already registered as a " + meter.getClass().getSimpleName());
+        }
+        return type.cast(meter);
+    }
+    
+    /**
+     * Visit every registered meter, in order of name.
+     *
+     * @param visitor
+     *            the visitor
+     */
+    public void accept(MetricVisitor visitor) {
+        for (Object meter : meters.values()) {
+            if (meter instanceof Counter) {
+                visitor.visitCounter((Counter) meter);
+            } else if (meter instanceof Timer) {
+                visitor.visitTimer((Timer) meter);
+            } else {
+                visitor.visitHistogram((Histogram) meter);
+            }
+        }
+    }
+    
+    /**
+     * @return the number of registered meters
+     */
+    public int size() {
+        return meters.size();
+    }
+}
@@ -0,0 +1,14 @@
+package datawave.util.metrics;
+
+/**
+ * Visits the meters of a {@link MetricRegistry}, e.g. to register each of them with a Micrometer {@code MeterRegistry} as a {@code FunctionCounter} or
+ * {@code FunctionTimer} that reads the values from the meter when it is published.
+ */
+public interface MetricVisitor {
+    
+    default void visitCounter(Counter counter) {}
+    
+    default void visitTimer(Timer timer) {}
+    
+    default void visitHistogram(Histogram histogram) {}
+}
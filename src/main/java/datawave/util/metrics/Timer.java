@@ -0,0 +1,115 @@
+package datawave.util.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency of a call, and the number of calls that failed. A call is timed with {@link #start()} and one of {@link #stop(long)} or
+ * {@link #stopFailed(long)}:
+ *
+ * <pre>
+ * long start = TIMER.start();
+ * try {
+ *     Result result = doSomething();
+ *     TIMER.stop(start);
+ *     return result;
+ * } catch (RuntimeException e) {
+ *     TIMER.stopFailed(start);
+ *     throw e;
+ * }
+ * </pre>
+ *
+ * A disabled timer does not read the clock at all. The latencies are kept in a {@link Histogram} of nanoseconds, and failed calls are included in it.
+ */
+public final class Timer {
+    
+    static final Timer NOOP = new Timer("noop", false);
+    
+    private final String name;
+    private final boolean enabled;
+    private final Histogram latency;
+    private final LongAdder failures = new LongAdder();
+    
+    Timer(String name, boolean enabled) {
+        this.name = name;
+        this.enabled = enabled;
+        this.latency = new Histogram(name, enabled);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * @return the start time to pass to {@link #stop(long)}, or 0 if the timer is disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+    
+    /**
+     * Record a successful call.
+     *
+     * @param start
+     *            the value returned by {@link #start()}
+     */
+    public void stop(long start) {
+        if (enabled) {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Record a failed call.
+     *
+     * @param start
+     *            the value returned by {@link #start()}
+     */
+    public void stopFailed(long start) {
+        if (enabled) {
+            latency.record(System.nanoTime() - start);
+            failures.increment();
+        }
+    }
+    
+    /**
+     * Record a call that was timed elsewhere.
+     */
+    public void record(long duration, TimeUnit unit) {
+        if (enabled) {
+            latency.record(unit.toNanos(duration));
+        }
+    }
+    
+    public long count() {
+        return latency.count();
+    }
+    
+    public long failureCount() {
+        return failures.sum();
+    }
+    
+    public double totalTime(TimeUnit unit) {
+        return (double) latency.total() / unit.toNanos(1);
+    }
+    
+    public double max(TimeUnit unit) {
+        return (double) latency.max() / unit.toNanos(1);
+    }
+    
+    public double mean(TimeUnit unit) {
+        return latency.mean() / unit.toNanos(1);
+    }
+    
+    /**
+     * @return the latencies, in nanoseconds
+     */
+    public Histogram getLatencyHistogram() {
+        return latency;
+    }
+    
+    @Override
+    public String toString() {
+        return name + "{count=" + count() + ", failures=" + failureCount() + ", totalNanos=" + latency.total() + ", maxNanos=" + latency.max() + "}";
+    }
+}
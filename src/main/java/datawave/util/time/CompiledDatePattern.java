@@ -0,0 +1,513 @@
+package datawave.util.time;
+
+import java.text.Format;
+import java.text.ParsePosition;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
+
+import datawave.util.cache.BoundedCache;
+
+/**
+ * A date pattern, as described in the {@link DateTimeFormatter} class documentation, prepared for repeated use by {@link DateHelper#parseCustom(String, String)}
+ * and {@link DateHelper#formatCustom(long, String)}.
+ * <p>
+ * Patterns made up only of fixed-width numeric fields (yyyy, MM, dd, DDD, HH, mm, ss and S..S) and literals are compiled into a layout that is parsed and
+ * formatted directly, without a {@link DateTimeFormatter} and without allocating anything other than the formatted string. Any other pattern (textual fields,
+ * variable-width fields, optional sections, etc.) falls back to the {@link DateTimeFormatter}. Either way the results are the same as the ones the
+ * {@link DateTimeFormatter} based implementation produces, including its lenient handling of trailing characters.
+ * <p>
+ * Instances are immutable and may be shared between threads. Use {@link #compile(String)} to get one, which caches the compiled patterns.
+ */
+public final class CompiledDatePattern {
+    
+    private static final int MAX_CACHED_PATTERNS = 1000;
+    
+    private static final BoundedCache<String,CompiledDatePattern> CACHE = BoundedCache.builder().maximumSize(MAX_CACHED_PATTERNS).build();
+    
+    // same check that DateHelper.parseCustom has always used to decide whether a pattern includes a time
+    private static final Pattern HOUR_PATTERN = Pattern.compile("(?i)(.*([kh]).*)");
+    
+    // the largest epoch second that can be converted to millis without overflow
+    private static final long MAX_DATE_EPOCH_SECOND = (Long.MAX_VALUE / 1000L) - 1L;
+    
+    private static final int LITERAL = 0;
+    private static final int YEAR = 1;
+    private static final int MONTH = 2;
+    private static final int DAY_OF_MONTH = 3;
+    private static final int DAY_OF_YEAR = 4;
+    private static final int HOUR = 5;
+    private static final int MINUTE = 6;
+    private static final int SECOND = 7;
+    private static final int FRACTION = 8;
+    
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000};
+    
+    private final String pattern;
+    private final DateTimeFormatter formatter;
+    private final Format formatterParser;
+    private final boolean hasTime;
+    
+    // the compiled layout, or null if the pattern could not be compiled; one entry per token
+    private final int[] kinds;
+    private final int[] offsets;
+    private final int[] widths;
+    // the formatted width, with the literal characters in place
+    private final char[] template;
+    private final int yearOffset;
+    private final boolean fastParse;
+    
+    private CompiledDatePattern(String pattern) {
+        this.pattern = pattern;
+        // always create the formatter first, so that invalid patterns are rejected exactly as before
+        this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC);
+        this.hasTime = HOUR_PATTERN.matcher(pattern).matches();
+        this.formatterParser = hasTime ? formatter.toFormat(ZonedDateTime::from) : formatter.toFormat(LocalDate::from);
+        
+        Layout layout = Layout.of(pattern);
+        if (layout != null) {
+            this.kinds = layout.kinds;
+            this.offsets = layout.offsets;
+            this.widths = layout.widths;
+            this.template = layout.template;
+            this.yearOffset = layout.offsetOf(YEAR);
+            this.fastParse = layout.canParse(hasTime);
+        } else {
+            this.kinds = null;
+            this.offsets = null;
+            this.widths = null;
+            this.template = null;
+            this.yearOffset = -1;
+            this.fastParse = false;
+        }
+    }
+    
+    /**
+     * Get the compiled form of a pattern. Compiled patterns are cached, so calling this for every date is cheap.
+     *
+     * @param pattern
+     *            the pattern, as described in {@link DateTimeFormatter}
+     * @return the compiled pattern
+     * @throws IllegalArgumentException
+     *             if the pattern is invalid
+     */
+    public static CompiledDatePattern compile(String pattern) {
+        // a race here only means the pattern may be compiled twice
+        return CACHE.get(pattern, CompiledDatePattern::new);
+    }
+    
+    public String getPattern() {
+        return pattern;
+    }
+    
+    /**
+     * @return true if dates are parsed without a {@link DateTimeFormatter}
+     */
+    public boolean hasFastParser() {
+        return fastParse;
+    }
+    
+    /**
+     * @return true if dates are formatted without a {@link DateTimeFormatter}, at least for years 1 through 9999
+     */
+    public boolean hasFastFormatter() {
+        return template != null;
+    }
+    
+    DateTimeFormatter getFormatter() {
+        return formatter;
+    }
+    
+    boolean hasTime() {
+        return hasTime;
+    }
+    
+    /**
+     * Parse a date in this pattern, with the same leniency as {@link DateHelper#parseCustom(String, String)}.
+     *
+     * @param date
+     *            the date
+     * @return the time in millis, or {@link DateHelper#PARSE_FAILURE} if the date is null or could not be parsed
+     */
+    public long parse(String date) {
+        if (date == null) {
+            return DateHelper.PARSE_FAILURE;
+        }
+        
+        // handle a special case where the pattern in yyyyDDD but the day of year is not zero padded, i.e. 202311 is Jan 11 2023
+        if ("yyyyDDD".equals(pattern) && "yyyyDDD".length() > date.length()) {
+            return (date.length() == 6) ? FastDateParser.toEpochMillisFromDayOfYear(FastDateParser.digits(date, 0, 4), FastDateParser.digits(date, 4, 2))
+                            : DateHelper.PARSE_FAILURE;
+        }
+        
+        // the text is truncated to the length of the pattern, the same as DateHelper's lenient parsing
+        int length = Math.min(date.length(), pattern.length());
+        if (fastParse && (yearOffset >= length || date.charAt(yearOffset) != '+')) {
+            return (length == template.length) ? parseLayout(date) : DateHelper.PARSE_FAILURE;
+        }
+        
+        // the formatter also handles years beyond 9999, written with a leading sign
+        return parse(date.substring(0, length), formatterParser, hasTime);
+    }
+    
+    private long parseLayout(String date) {
+        int year = 0, month = 1, day = 1, dayOfYear = -1, hour = 0, minute = 0, second = 0, millis = 0;
+        boolean fractionIsZero = true;
+        for (int i = 0; i < kinds.length; i++) {
+            int offset = offsets[i];
+            int width = widths[i];
+            if (kinds[i] == LITERAL) {
+                for (int j = offset; j < offset + width; j++) {
+                    if (date.charAt(j) != template[j]) {
+                        return DateHelper.PARSE_FAILURE;
+                    }
+                }
+                continue;
+            }
+            int value = (kinds[i] == FRACTION) ? FastDateParser.digits(date, offset, Math.min(width, 3)) : FastDateParser.digits(date, offset, width);
+            if (value < 0) {
+                return DateHelper.PARSE_FAILURE;
+            }
+            switch (kinds[i]) {
+                case YEAR:
+                    year = value;
+                    break;
+                case MONTH:
+                    month = value;
+                    break;
+                case DAY_OF_MONTH:
+                    day = value;
+                    break;
+                case DAY_OF_YEAR:
+                    dayOfYear = value;
+                    break;
+                case HOUR:
+                    hour = value;
+                    break;
+                case MINUTE:
+                    minute = value;
+                    break;
+                case SECOND:
+                    second = value;
+                    break;
+                case FRACTION:
+                    // only millis survive the conversion to a Date, but the remaining digits must still be digits
+                    millis = (width < 3) ? value * POWERS_OF_TEN[3 - width] : value;
+                    if (width > 3) {
+                        int nanos = FastDateParser.digits(date, offset + 3, width - 3);
+                        if (nanos < 0) {
+                            return DateHelper.PARSE_FAILURE;
+                        }
+                        fractionIsZero = (nanos == 0);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        if (hour == 24 && !fractionIsZero) {
+            // 24:00 must be exactly the end of the day
+            return DateHelper.PARSE_FAILURE;
+        }
+        if (dayOfYear < 0) {
+            return FastDateParser.toEpochMillis(year, month, day, hour, minute, second, millis);
+        }
+        long startOfDay = FastDateParser.toEpochMillisFromDayOfYear(year, dayOfYear);
+        if (startOfDay == FastDateParser.INVALID) {
+            return DateHelper.PARSE_FAILURE;
+        }
+        return FastDateParser.toEpochMillis(startOfDay / FastDateParser.MILLIS_PER_DAY, hour, minute, second, millis);
+    }
+    
+    /**
+     * Parse the whole text with the given formatter, without using exceptions to report a mismatch. The formatter may still create an exception internally
+     * when the text matches the pattern but the values fail to resolve (e.g. a month of 13).
+     */
+    static long parse(String date, Format parser, boolean hasTime) {
+        ParsePosition position = new ParsePosition(0);
+        Object parsed = parser.parseObject(date, position);
+        if (parsed == null || position.getIndex() != date.length()) {
+            return DateHelper.PARSE_FAILURE;
+        }
+        Instant instant = hasTime ? ((ZonedDateTime) parsed).toInstant() : ((LocalDate) parsed).atStartOfDay(ZoneOffset.UTC).toInstant();
+        
+        // the result must be representable as a Date
+        if (Math.abs(instant.getEpochSecond()) > MAX_DATE_EPOCH_SECOND) {
+            return DateHelper.PARSE_FAILURE;
+        }
+        return instant.toEpochMilli();
+    }
+    
+    /**
+     * Format the time in this pattern.
+     *
+     * @param inMillis
+     *            the time in millis
+     * @return the formatted date
+     */
+    public String format(long inMillis) {
+        if (template != null) {
+            char[] chars = new char[template.length];
+            if (formatLayout(inMillis, chars, null)) {
+                return new String(chars);
+            }
+        }
+        return formatter.format(Instant.ofEpochMilli(inMillis));
+    }
+    
+    /**
+     * Format the time in this pattern, appending it to the given builder.
+     *
+     * @param inMillis
+     *            the time in millis
+     * @param builder
+     *            the builder to append to
+     * @return the builder
+     */
+    public StringBuilder formatTo(long inMillis, StringBuilder builder) {
+        if (template == null || !formatLayout(inMillis, null, builder)) {
+            formatter.formatTo(Instant.ofEpochMilli(inMillis), builder);
+        }
+        return builder;
+    }
+    
+    /**
+     * Write the formatted time into either the array or the builder.
+     *
+     * @return false if nothing was written because the year needs the formatter's handling
+     */
+    private boolean formatLayout(long inMillis, char[] chars, StringBuilder builder) {
+        long epochDay = Math.floorDiv(inMillis, FastDateParser.MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(inMillis, FastDateParser.MILLIS_PER_DAY);
+        long date = FastDateParser.toYearMonthDay(epochDay);
+        int year = FastDateParser.year(date);
+        if (year < 1 || year > 9999) {
+            // years outside of four digits are written with a sign, or as a year of era
+            return false;
+        }
+        for (int i = 0; i < kinds.length; i++) {
+            int offset = offsets[i];
+            int width = widths[i];
+            int value;
+            switch (kinds[i]) {
+                case YEAR:
+                    value = year;
+                    break;
+                case MONTH:
+                    value = FastDateParser.month(date);
+                    break;
+                case DAY_OF_MONTH:
+                    value = FastDateParser.dayOfMonth(date);
+                    break;
+                case DAY_OF_YEAR:
+                    value = (int) (epochDay - FastDateParser.toEpochDay(year, 1, 1)) + 1;
+                    break;
+                case HOUR:
+                    value = millisOfDay / (int) FastDateParser.MILLIS_PER_HOUR;
+                    break;
+                case MINUTE:
+                    value = (millisOfDay / (int) FastDateParser.MILLIS_PER_MINUTE) % 60;
+                    break;
+                case SECOND:
+                    value = (millisOfDay / (int) FastDateParser.MILLIS_PER_SECOND) % 60;
+                    break;
+                case FRACTION:
+                    int millis = millisOfDay % 1000;
+                    value = (width <= 3) ? millis / POWERS_OF_TEN[3 - width] : millis * POWERS_OF_TEN[width - 3];
+                    break;
+                default:
+                    if (chars != null) {
+                        System.arraycopy(template, offset, chars, offset, width);
+                    } else {
+                        builder.append(template, offset, width);
+                    }
+                    continue;
+            }
+            for (int power = width - 1; power >= 0; power--) {
+                char digit = (char) ('0' + ((value / POWERS_OF_TEN[power]) % 10));
+                if (chars != null) {
+                    chars[offset + width - 1 - power] = digit;
+                } else {
+                    builder.append(digit);
+                }
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    public String toString() {
+        return pattern;
+    }
+    
+    /**
+     * The fixed-width layout of a pattern, as parallel arrays of tokens.
+     */
+    private static final class Layout {
+        private final int[] kinds;
+        private final int[] offsets;
+        private final int[] widths;
+        private final char[] template;
+        
+        private Layout(int[] kinds, int[] offsets, int[] widths, char[] template) {
+            this.kinds = kinds;
+            this.offsets = offsets;
+            this.widths = widths;
+            this.template = template;
+        }
+        
+        /**
+         * Compile the pattern.
+         *
+         * @return the layout, or null if the pattern contains anything that is not a fixed-width numeric field or a literal
+         */
+        static Layout of(String pattern) {
+            int length = pattern.length();
+            int[] kinds = new int[length];
+            int[] offsets = new int[length];
+            int[] widths = new int[length];
+            StringBuilder template = new StringBuilder(length);
+            int tokens = 0;
+            int i = 0;
+            while (i < length) {
+                char c = pattern.charAt(i);
+                if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+                    int count = 1;
+                    while (i + count < length && pattern.charAt(i + count) == c) {
+                        count++;
+                    }
+                    int kind = kindOf(c, count);
+                    if (kind == LITERAL) {
+                        return null;
+                    }
+                    kinds[tokens] = kind;
+                    offsets[tokens] = template.length();
+                    widths[tokens] = count;
+                    tokens++;
+                    for (int j = 0; j < count; j++) {
+                        template.append('0');
+                    }
+                    i += count;
+                } else {
+                    int start = template.length();
+                    if (c == '\'') {
+                        // quoted literal, where two quotes are a single quote
+                        i++;
+                        if (i < length && pattern.charAt(i) == '\'') {
+                            template.append('\'');
+                            i++;
+                        } else {
+                            while (i < length) {
+                                char q = pattern.charAt(i++);
+                                if (q == '\'') {
+                                    if (i < length && pattern.charAt(i) == '\'') {
+                                        template.append('\'');
+                                        i++;
+                                    } else {
+                                        break;
+                                    }
+                                } else {
+                                    template.append(q);
+                                }
+                            }
+                        }
+                    } else if (c == '[' || c == ']' || c == '{' || c == '}' || c == '#') {
+                        // optional sections and reserved characters
+                        return null;
+                    } else {
+                        template.append(c);
+                        i++;
+                    }
+                    if (template.length() > start) {
+                        kinds[tokens] = LITERAL;
+                        offsets[tokens] = start;
+                        widths[tokens] = template.length() - start;
+                        tokens++;
+                    }
+                }
+            }
+            char[] chars = new char[template.length()];
+            template.getChars(0, chars.length, chars, 0);
+            return new Layout(truncate(kinds, tokens), truncate(offsets, tokens), truncate(widths, tokens), chars);
+        }
+        
+        private static int kindOf(char letter, int count) {
+            switch (letter) {
+                case 'y':
+                    return (count == 4) ? YEAR : LITERAL;
+                case 'M':
+                    return (count == 2) ? MONTH : LITERAL;
+                case 'd':
+                    return (count == 2) ? DAY_OF_MONTH : LITERAL;
+                case 'D':
+                    return (count == 3) ? DAY_OF_YEAR : LITERAL;
+                case 'H':
+                    return (count == 2) ? HOUR : LITERAL;
+                case 'm':
+                    return (count == 2) ? MINUTE : LITERAL;
+                case 's':
+                    return (count == 2) ? SECOND : LITERAL;
+                case 'S':
+                    return (count <= 9) ? FRACTION : LITERAL;
+                default:
+                    return LITERAL;
+            }
+        }
+        
+        private static int[] truncate(int[] values, int length) {
+            int[] truncated = new int[length];
+            System.arraycopy(values, 0, truncated, 0, length);
+            return truncated;
+        }
+        
+        int offsetOf(int kind) {
+            for (int i = 0; i < kinds.length; i++) {
+                if (kinds[i] == kind) {
+                    return offsets[i];
+                }
+            }
+            return -1;
+        }
+        
+        private int count(int kind) {
+            int count = 0;
+            for (int k : kinds) {
+                if (k == kind) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        
+        /**
+         * Whether parsing this layout directly gives the same results as the formatter. That requires a complete date, a chain of time fields that the
+         * resolver accepts, and no digits in the literals (which the formatter would read as part of an adjacent year).
+         */
+        boolean canParse(boolean hasTime) {
+            for (int i = 0; i < kinds.length; i++) {
+                if (kinds[i] == LITERAL) {
+                    for (int j = offsets[i]; j < offsets[i] + widths[i]; j++) {
+                        if (FastDateParser.isDigit(template[j]) || template[j] == '+') {
+                            return false;
+                        }
+                    }
+                } else if (count(kinds[i]) > 1) {
+                    return false;
+                }
+            }
+            boolean monthDay = count(MONTH) == 1 && count(DAY_OF_MONTH) == 1 && count(DAY_OF_YEAR) == 0;
+            boolean dayOfYear = count(MONTH) == 0 && count(DAY_OF_MONTH) == 0 && count(DAY_OF_YEAR) == 1;
+            if (count(YEAR) != 1 || !(monthDay || dayOfYear)) {
+                return false;
+            }
+            if (!hasTime) {
+                return count(HOUR) == 0 && count(MINUTE) == 0 && count(SECOND) == 0 && count(FRACTION) == 0;
+            }
+            return count(HOUR) == 1 && (count(SECOND) == 0 || count(MINUTE) == 1) && (count(FRACTION) == 0 || count(SECOND) == 1);
+        }
+    }
+}
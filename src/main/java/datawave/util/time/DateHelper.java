@@ -1,5 +1,6 @@
 package datawave.util.time;
 
+import java.text.Format;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
@@ -10,7 +11,9 @@ import java.time.temporal.ChronoField;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Locale;
-import java.util.regex.Pattern;
+
+import datawave.util.metrics.HotPathMetrics;
+import datawave.util.metrics.Timer;
 
 /**
  * This class validates date ranges and converts Date objects to and from Strings in yyyyMMdd format in a way that is not dependent on local settings or
@@ -41,12 +44,24 @@ public class DateHelper {
     
     public static final String DATE_FORMAT_STRING_8601 = "yyyy-MM-dd'T'HH:mm:ss[.SSS]['Z']";
     private static final DateTimeFormatter DTF_8601 = DateTimeFormatter.ofPattern(DATE_FORMAT_STRING_8601).withZone(ZoneOffset.UTC);
+    private static final Format FORMAT_8601 = DTF_8601.toFormat(ZonedDateTime::from);
     
     public static final String DATE_FORMAT_REMOVE_CONSTANT = "yyyyMMddHHmmss.SSS";
     private static final DateTimeFormatter DTF_Remove = DateTimeFormatter.ofPattern(DATE_FORMAT_REMOVE_CONSTANT).withZone(ZoneOffset.UTC);
     
-    private static final String HOUR_REGEX = "(?i)(.*([kh]).*)";
-    private static final Pattern HOUR_PATTERN = Pattern.compile(HOUR_REGEX);
+    /**
+     * The value returned by the {@code try*} parse methods when the text could not be parsed.
+     */
+    public static final long PARSE_FAILURE = FastDateParser.INVALID;
+    
+    // the try* methods are timed, and the parse methods are timed through them; a failure is a value that could not be parsed
+    private static final Timer PARSE_DAY_TIMER = HotPathMetrics.timer("datawave.date.parse.day");
+    private static final Timer PARSE_HOUR_TIMER = HotPathMetrics.timer("datawave.date.parse.hour");
+    private static final Timer PARSE_SECONDS_TIMER = HotPathMetrics.timer("datawave.date.parse.seconds");
+    private static final Timer PARSE_REMOVE_TIMER = HotPathMetrics.timer("datawave.date.parse.remove");
+    private static final Timer PARSE_8601_TIMER = HotPathMetrics.timer("datawave.date.parse.8601");
+    private static final Timer DETECT_AND_PARSE_TIMER = HotPathMetrics.timer("datawave.date.parse.detect");
+    private static final Timer PARSE_CUSTOM_TIMER = HotPathMetrics.timer("datawave.date.parse.custom");
     
     /**
      * Return a string representing the given date in yyyyMMdd format in a consistent way not dependent on local settings for calendar, timezone, or locale by
@@ -159,7 +174,7 @@ public class DateHelper {
      * @return the formatted date
      */
     public static String formatCustom(long inMillis, String pattern) {
-        return DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC).format(Instant.ofEpochMilli(inMillis));
+        return CompiledDatePattern.compile(pattern).format(inMillis);
     }
     
     /**
@@ -173,7 +188,7 @@ public class DateHelper {
      * @return the formatted date
      */
     public static String formatCustom(Date date, String pattern) {
-        return DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC).format(date.toInstant());
+        return CompiledDatePattern.compile(pattern).format(date.getTime());
     }
     
     /**
@@ -184,7 +199,19 @@ public class DateHelper {
      * @return the {@code Date} object
      */
     public static Date parse(String date) {
-        return lenientParseHelper(date, DTF_day, DATE_FORMAT_STRING_TO_DAY, false);
+        long millis = tryParse(date);
+        return (millis != PARSE_FAILURE) ? new Date(millis) : lenientParseHelper(date, DTF_day, DATE_FORMAT_STRING_TO_DAY, false);
+    }
+    
+    /**
+     * Same as {@link #parse(String)}, but returns the time in millis and reports a failure by returning {@link #PARSE_FAILURE} instead of throwing an exception.
+     *
+     * @param date
+     * @return the time in millis, or {@link #PARSE_FAILURE} if the date is null or could not be parsed
+     */
+    public static long tryParse(String date) {
+        long start = PARSE_DAY_TIMER.start();
+        return stop(PARSE_DAY_TIMER, start, (date == null) ? PARSE_FAILURE : FastDateParser.parseDay(date));
     }
     
     /**
@@ -195,11 +222,34 @@ public class DateHelper {
      * @return the {@code Date} object
      */
     public static Date parseHour(String date) {
-        return lenientParseHelper(date, DTF_hour, DATE_FORMAT_STRING_TO_HOUR, true);
+        long millis = tryParseHour(date);
+        return (millis != PARSE_FAILURE) ? new Date(millis) : lenientParseHelper(date, DTF_hour, DATE_FORMAT_STRING_TO_HOUR, true);
+    }
+    
+    /**
+     * Same as {@link #parseHour(String)}, but returns the time in millis and reports a failure by returning {@link #PARSE_FAILURE} instead of throwing an
+     * exception.
+     *
+     * @param date
+     * @return the time in millis, or {@link #PARSE_FAILURE} if the date is null or could not be parsed
+     */
+    public static long tryParseHour(String date) {
+        long start = PARSE_HOUR_TIMER.start();
+        return stop(PARSE_HOUR_TIMER, start, (date == null) ? PARSE_FAILURE : FastDateParser.parseHour(date));
+    }
+    
+    private static long stop(Timer timer, long start, long millis) {
+        if (millis == PARSE_FAILURE) {
+            timer.stopFailed(start);
+        } else {
+            timer.stop(start);
+        }
+        return millis;
     }
     
     /**
-     * Only use this for formats that can allow for leniency (i.e. not ISO standard formats).
+     * Only use this for formats that can allow for leniency (i.e. not ISO standard formats). The parse methods try their {@code try*} counterpart first, so this
+     * is only reached for dates that cannot be parsed, and it is what produces the exception describing the problem.
      */
     private static Date lenientParseHelper(String date, DateTimeFormatter parser, String formatStr, boolean hasTime) {
         String lenientDate = convertToLenient(date, formatStr);
@@ -232,7 +282,20 @@ public class DateHelper {
      * @return the {@code Date} object
      */
     public static Date parseTimeExactToSeconds(String date) {
-        return lenientParseHelper(date, DTF_Seconds, DATE_FORMAT_STRING_TO_SECONDS, true);
+        long millis = tryParseTimeExactToSeconds(date);
+        return (millis != PARSE_FAILURE) ? new Date(millis) : lenientParseHelper(date, DTF_Seconds, DATE_FORMAT_STRING_TO_SECONDS, true);
+    }
+    
+    /**
+     * Same as {@link #parseTimeExactToSeconds(String)}, but returns the time in millis and reports a failure by returning {@link #PARSE_FAILURE} instead of
+     * throwing an exception.
+     *
+     * @param date
+     * @return the time in millis, or {@link #PARSE_FAILURE} if the date is null or could not be parsed
+     */
+    public static long tryParseTimeExactToSeconds(String date) {
+        long start = PARSE_SECONDS_TIMER.start();
+        return stop(PARSE_SECONDS_TIMER, start, (date == null) ? PARSE_FAILURE : FastDateParser.parseSeconds(date));
     }
     
     /**
@@ -244,7 +307,8 @@ public class DateHelper {
      * @deprecated
      */
     public static Date parseWithGMT(String date) {
-        return lenientParseHelper(date, DTF_day_GMT, DATE_FORMAT_STRING_TO_DAY, false);
+        long millis = tryParse(date);
+        return (millis != PARSE_FAILURE) ? new Date(millis) : lenientParseHelper(date, DTF_day_GMT, DATE_FORMAT_STRING_TO_DAY, false);
     }
     
     /**
@@ -264,6 +328,10 @@ public class DateHelper {
      * @return the {@code Date} object
      */
     public static Date parse8601(String date) {
+        long millis = tryParse8601(date);
+        if (millis != PARSE_FAILURE) {
+            return new Date(millis);
+        }
         try {
             return Date.from(ZonedDateTime.parse(date, DTF_8601).toInstant());
         } catch (DateTimeParseException e) {
@@ -271,6 +339,26 @@ public class DateHelper {
         }
     }
     
+    /**
+     * Same as {@link #parse8601(String)}, but returns the time in millis and reports a failure by returning {@link #PARSE_FAILURE} instead of throwing an
+     * exception.
+     *
+     * @param date
+     * @return the time in millis, or {@link #PARSE_FAILURE} if the date is null or could not be parsed
+     */
+    public static long tryParse8601(String date) {
+        long start = PARSE_8601_TIMER.start();
+        if (date == null) {
+            return stop(PARSE_8601_TIMER, start, PARSE_FAILURE);
+        }
+        long millis = FastDateParser.parse8601(date);
+        if (millis == PARSE_FAILURE && !date.isEmpty() && date.charAt(0) == '+') {
+            // years past 9999 are written with a leading sign, which only the formatter handles
+            millis = CompiledDatePattern.parse(date, FORMAT_8601, true);
+        }
+        return stop(PARSE_8601_TIMER, start, millis);
+    }
+    
     /**
      * Converts a String in yyyyMMddHHmmss.SSS format to a Date object in a consistent way not dependent on local settings for calendar, timezone, or locale by
      * using Zulu timezone and US locale.
@@ -279,7 +367,66 @@ public class DateHelper {
      * @return the {@code Date} object
      */
     public static Date parseRemove(String date) {
-        return lenientParseHelper(date, DTF_Remove, DATE_FORMAT_REMOVE_CONSTANT, true);
+        long millis = tryParseRemove(date);
+        return (millis != PARSE_FAILURE) ? new Date(millis) : lenientParseHelper(date, DTF_Remove, DATE_FORMAT_REMOVE_CONSTANT, true);
+    }
+    
+    /**
+     * Same as {@link #parseRemove(String)}, but returns the time in millis and reports a failure by returning {@link #PARSE_FAILURE} instead of throwing an
+     * exception.
+     *
+     * @param date
+     * @return the time in millis, or {@link #PARSE_FAILURE} if the date is null or could not be parsed
+     */
+    public static long tryParseRemove(String date) {
+        long start = PARSE_REMOVE_TIMER.start();
+        return stop(PARSE_REMOVE_TIMER, start, (date == null) ? PARSE_FAILURE : FastDateParser.parseRemove(date));
+    }
+    
+    /**
+     * Converts a String in any of the yyyyMMdd, yyyyMMddHH, yyyyMMddHHmmss, yyyyMMddHHmmss.SSS or 8601 formats to a Date object in a consistent way not
+     * dependent on local settings for calendar, timezone, or locale by using Zulu timezone and US locale. The format is detected from the number of leading
+     * digits and the separator that follows them, so trailing characters, including extra digits, are ignored in the same way that the lenient parse methods
+     * ignore them.
+     *
+     * @param date
+     * @return the {@code Date} object
+     * @throws DateTimeParseException
+     *             if the date is not in one of the supported formats
+     */
+    public static Date detectAndParse(String date) {
+        long millis = tryDetectAndParse(date);
+        if (millis != PARSE_FAILURE) {
+            return new Date(millis);
+        }
+        
+        // use the parse method for the detected format to report the failure
+        switch (FastDateParser.detectFormat(date)) {
+            case FastDateParser.FORMAT_DAY:
+                return parse(date);
+            case FastDateParser.FORMAT_HOUR:
+                return parseHour(date);
+            case FastDateParser.FORMAT_SECONDS:
+                return parseTimeExactToSeconds(date);
+            case FastDateParser.FORMAT_REMOVE:
+                return parseRemove(date);
+            case FastDateParser.FORMAT_8601:
+                return parse8601(date);
+            default:
+                throw new DateTimeParseException("Text '" + date + "' could not be parsed: unrecognized date format", date, 0);
+        }
+    }
+    
+    /**
+     * Same as {@link #detectAndParse(String)}, but returns the time in millis and reports a failure by returning {@link #PARSE_FAILURE} instead of throwing an
+     * exception. This makes it cheap to skip and count bad values.
+     *
+     * @param date
+     * @return the time in millis, or {@link #PARSE_FAILURE} if the date is null or not in one of the supported formats
+     */
+    public static long tryDetectAndParse(String date) {
+        long start = DETECT_AND_PARSE_TIMER.start();
+        return stop(DETECT_AND_PARSE_TIMER, start, (date == null) ? PARSE_FAILURE : FastDateParser.parse(date, FastDateParser.detectFormat(date)));
     }
     
     /**
@@ -293,6 +440,11 @@ public class DateHelper {
      * @return the {@code Date} object
      */
     public static Date parseCustom(String date, String pattern) {
+        long millis = tryParseCustom(date, pattern);
+        if (millis != PARSE_FAILURE) {
+            return new Date(millis);
+        }
+        
         // handle a special case where the pattern in yyyyDDD but the day of year is not zero padded
         // i.e. 202311 should return Jan 11 2023
         // also assumes date is not a lenient date
@@ -303,9 +455,34 @@ public class DateHelper {
             return Date.from(LocalDate.parse(date, formatter).atStartOfDay(formatter.getZone()).toInstant());
         }
         
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC);
+        CompiledDatePattern compiled = CompiledDatePattern.compile(pattern);
         
-        return lenientParseHelper(date, formatter, pattern, HOUR_PATTERN.matcher(pattern).matches());
+        return lenientParseHelper(date, compiled.getFormatter(), pattern, compiled.hasTime());
+    }
+    
+    /**
+     * Same as {@link #parseCustom(String, String)}, but returns the time in millis and reports a failure by returning {@link #PARSE_FAILURE} instead of
+     * throwing an exception. Purely numeric fixed-width patterns are parsed without a {@link DateTimeFormatter}, see {@link CompiledDatePattern}. An invalid
+     * pattern is still reported with an {@link IllegalArgumentException}, since that is a configuration error and not bad data.
+     *
+     * @see DateTimeFormatter
+     *
+     * @param date
+     * @param pattern
+     * @return the time in millis, or {@link #PARSE_FAILURE} if the date is null or could not be parsed
+     */
+    public static long tryParseCustom(String date, String pattern) {
+        long start = PARSE_CUSTOM_TIMER.start();
+        if (date == null) {
+            return stop(PARSE_CUSTOM_TIMER, start, PARSE_FAILURE);
+        }
+        try {
+            return stop(PARSE_CUSTOM_TIMER, start, CompiledDatePattern.compile(pattern).parse(date));
+        } catch (RuntimeException e) {
+            // an invalid pattern
+            PARSE_CUSTOM_TIMER.stopFailed(start);
+            throw e;
+        }
     }
     
     /**
@@ -0,0 +1,319 @@
+package datawave.util.time;
+
+/**
+ * Allocation-free parsers for the fixed-width numeric formats supported by {@link DateHelper}. These parsers never throw on bad input; instead they return
+ * {@link #INVALID} so that callers can decide whether to report the failure or move on. The field validation mirrors what a {@code DateTimeFormatter} built with
+ * the default (smart) resolver style does, so that a value accepted here is the same value the formatter would have produced:
+ * <ul>
+ * <li>the year of era must be at least 1</li>
+ * <li>a day of month past the end of the month (but not past 31) is clamped to the last day of the month</li>
+ * <li>an hour of 24 is accepted only when the remaining time fields are zero, and means midnight of the next day</li>
+ * </ul>
+ */
+final class FastDateParser {
+    
+    /** Returned when the text could not be parsed. No valid date within the supported range maps to this value. */
+    static final long INVALID = Long.MIN_VALUE;
+    
+    static final int FORMAT_NONE = 0;
+    static final int FORMAT_DAY = 1;
+    static final int FORMAT_HOUR = 2;
+    static final int FORMAT_SECONDS = 3;
+    static final int FORMAT_REMOVE = 4;
+    static final int FORMAT_8601 = 5;
+    
+    static final long MILLIS_PER_SECOND = 1000L;
+    static final long MILLIS_PER_MINUTE = 60L * MILLIS_PER_SECOND;
+    static final long MILLIS_PER_HOUR = 60L * MILLIS_PER_MINUTE;
+    static final long MILLIS_PER_DAY = 24L * MILLIS_PER_HOUR;
+    
+    /** The number of days from year zero to 1970-01-01, as used by {@code LocalDate.toEpochDay} */
+    private static final long DAYS_0000_TO_1970 = (146097L * 5L) - (30L * 365L + 7L);
+    
+    /** The number of days in a 400 year cycle */
+    private static final long DAYS_PER_CYCLE = 146097L;
+    
+    private FastDateParser() {}
+    
+    /**
+     * Determine which of the {@link DateHelper} formats the given text is in. The classification looks only at the length of the leading run of digits and at
+     * the separator following it, so trailing characters are tolerated the same way the lenient parse methods tolerate them. A run of digits that is longer
+     * than one format and shorter than the next is the longer format followed by extra digits, which the lenient parse methods would ignore, e.g. 9 digits
+     * are a yyyyMMdd and 11 to 13 are a yyyyMMddHH.
+     *
+     * @param date
+     *            the text to classify
+     * @return one of the {@code FORMAT_*} constants
+     */
+    static int detectFormat(CharSequence date) {
+        int length = date.length();
+        int run = 0;
+        while (run < length && isDigit(date.charAt(run))) {
+            run++;
+        }
+        if (run == 4) {
+            return (length > 4 && date.charAt(4) == '-') ? FORMAT_8601 : FORMAT_NONE;
+        }
+        if (run < 8) {
+            return FORMAT_NONE;
+        }
+        if (run < 10) {
+            return FORMAT_DAY;
+        }
+        if (run < 14) {
+            return FORMAT_HOUR;
+        }
+        if (run == 14 && length >= 18 && date.charAt(14) == '.' && digits(date, 15, 3) >= 0) {
+            return FORMAT_REMOVE;
+        }
+        return FORMAT_SECONDS;
+    }
+    
+    /**
+     * Parse the text in the given format.
+     *
+     * @param date
+     *            the text to parse
+     * @param format
+     *            one of the {@code FORMAT_*} constants
+     * @return the time in millis, or {@link #INVALID}
+     */
+    static long parse(CharSequence date, int format) {
+        switch (format) {
+            case FORMAT_DAY:
+                return parseDay(date);
+            case FORMAT_HOUR:
+                return parseHour(date);
+            case FORMAT_SECONDS:
+                return parseSeconds(date);
+            case FORMAT_REMOVE:
+                return parseRemove(date);
+            case FORMAT_8601:
+                return parse8601(date);
+            default:
+                return INVALID;
+        }
+    }
+    
+    /**
+     * Parse the leading yyyyMMdd of the text, ignoring anything after it.
+     */
+    static long parseDay(CharSequence date) {
+        if (date.length() < 8) {
+            return INVALID;
+        }
+        return toEpochMillis(digits(date, 0, 4), digits(date, 4, 2), digits(date, 6, 2), 0, 0, 0, 0);
+    }
+    
+    /**
+     * Parse the leading yyyyMMddHH of the text, ignoring anything after it.
+     */
+    static long parseHour(CharSequence date) {
+        if (date.length() < 10) {
+            return INVALID;
+        }
+        return toEpochMillis(digits(date, 0, 4), digits(date, 4, 2), digits(date, 6, 2), digits(date, 8, 2), 0, 0, 0);
+    }
+    
+    /**
+     * Parse the leading yyyyMMddHHmmss of the text, ignoring anything after it.
+     */
+    static long parseSeconds(CharSequence date) {
+        if (date.length() < 14) {
+            return INVALID;
+        }
+        return toEpochMillis(digits(date, 0, 4), digits(date, 4, 2), digits(date, 6, 2), digits(date, 8, 2), digits(date, 10, 2), digits(date, 12, 2), 0);
+    }
+    
+    /**
+     * Parse the leading yyyyMMddHHmmss.SSS of the text, ignoring anything after it.
+     */
+    static long parseRemove(CharSequence date) {
+        if (date.length() < 18 || date.charAt(14) != '.') {
+            return INVALID;
+        }
+        return toEpochMillis(digits(date, 0, 4), digits(date, 4, 2), digits(date, 6, 2), digits(date, 8, 2), digits(date, 10, 2), digits(date, 12, 2),
+                        digits(date, 15, 3));
+    }
+    
+    /**
+     * Parse the whole text as yyyy-MM-dd'T'HH:mm:ss with an optional .SSS and an optional trailing Z. Only four digit years are handled here.
+     */
+    static long parse8601(CharSequence date) {
+        int length = date.length();
+        if (length < 19 || date.charAt(4) != '-' || date.charAt(7) != '-' || date.charAt(10) != 'T' || date.charAt(13) != ':' || date.charAt(16) != ':') {
+            return INVALID;
+        }
+        int pos = 19;
+        int millis = 0;
+        if (pos < length && date.charAt(pos) == '.' && length >= pos + 4) {
+            millis = digits(date, pos + 1, 3);
+            if (millis >= 0) {
+                pos += 4;
+            } else {
+                // the optional fraction did not match, so the '.' is left unparsed
+                return INVALID;
+            }
+        }
+        if (pos < length && date.charAt(pos) == 'Z') {
+            pos++;
+        }
+        if (pos != length) {
+            return INVALID;
+        }
+        return toEpochMillis(digits(date, 0, 4), digits(date, 5, 2), digits(date, 8, 2), digits(date, 11, 2), digits(date, 14, 2), digits(date, 17, 2), millis);
+    }
+    
+    /**
+     * Read a fixed number of decimal digits.
+     *
+     * @return the value of the digits, or -1 if any of the characters is not a digit
+     */
+    static int digits(CharSequence s, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = (value * 10) + (c - '0');
+        }
+        return value;
+    }
+    
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    /**
+     * Convert the fields to a time in millis, validating them the same way the smart resolver does. Any negative field value (i.e. one that was not all
+     * digits) is rejected.
+     *
+     * @return the time in millis, or {@link #INVALID}
+     */
+    static long toEpochMillis(int year, int month, int day, int hour, int minute, int second, int millis) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return INVALID;
+        }
+        long epochDay = toEpochDay(year, month, Math.min(day, lengthOfMonth(year, month)));
+        return toEpochMillis(epochDay, hour, minute, second, millis);
+    }
+    
+    /**
+     * Convert a year and day of year to the time in millis of the start of that day. The day of year must be valid for the year.
+     *
+     * @return the time in millis, or {@link #INVALID}
+     */
+    static long toEpochMillisFromDayOfYear(int year, int dayOfYear) {
+        if (year < 1 || dayOfYear < 1 || dayOfYear > (isLeapYear(year) ? 366 : 365)) {
+            return INVALID;
+        }
+        return (toEpochDay(year, 1, 1) + dayOfYear - 1) * MILLIS_PER_DAY;
+    }
+    
+    /**
+     * Convert an epoch day and time fields to a time in millis, validating the time fields the same way the smart resolver does.
+     *
+     * @return the time in millis, or {@link #INVALID}
+     */
+    static long toEpochMillis(long epochDay, int hour, int minute, int second, int millis) {
+        if (minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0 || millis > 999) {
+            return INVALID;
+        }
+        if (hour == 24) {
+            // 24:00 is the end of the day, i.e. the start of the next one
+            if (minute != 0 || second != 0 || millis != 0) {
+                return INVALID;
+            }
+            epochDay++;
+            hour = 0;
+        } else if (hour < 0 || hour > 23) {
+            return INVALID;
+        }
+        return (epochDay * MILLIS_PER_DAY) + (hour * MILLIS_PER_HOUR) + (minute * MILLIS_PER_MINUTE) + (second * MILLIS_PER_SECOND) + millis;
+    }
+    
+    /**
+     * The same computation as {@code LocalDate.toEpochDay} without creating the {@code LocalDate}.
+     */
+    static long toEpochDay(long year, int month, int day) {
+        long total = 365L * year;
+        if (year >= 0) {
+            total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        } else {
+            total -= year / -4 - year / -100 + year / -400;
+        }
+        total += (367L * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+    
+    /**
+     * The same computation as {@code LocalDate.ofEpochDay} without creating the {@code LocalDate}. The result is packed into a long; use {@link #year(long)},
+     * {@link #month(long)} and {@link #dayOfMonth(long)} to read it.
+     */
+    static long toYearMonthDay(long epochDay) {
+        long zeroDay = epochDay + DAYS_0000_TO_1970;
+        // find the march-based year
+        zeroDay -= 60; // adjust to 0000-03-01 so leap day is at end of four year cycle
+        long adjust = 0;
+        if (zeroDay < 0) {
+            // adjust negative years to positive for calculation
+            long adjustCycles = (zeroDay + 1) / DAYS_PER_CYCLE - 1;
+            adjust = adjustCycles * 400;
+            zeroDay += -adjustCycles * DAYS_PER_CYCLE;
+        }
+        long yearEst = (400 * zeroDay + 591) / DAYS_PER_CYCLE;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            // fix estimate
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        yearEst += adjust; // reset any negative year
+        int marchDoy0 = (int) doyEst;
+        
+        // convert march-based values back to january-based
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        int month = (marchMonth0 + 2) % 12 + 1;
+        int dom = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+        yearEst += marchMonth0 / 10;
+        return (yearEst << 9) | ((long) month << 5) | dom;
+    }
+    
+    static int year(long yearMonthDay) {
+        return (int) (yearMonthDay >> 9);
+    }
+    
+    static int month(long yearMonthDay) {
+        return (int) ((yearMonthDay >> 5) & 0xF);
+    }
+    
+    static int dayOfMonth(long yearMonthDay) {
+        return (int) (yearMonthDay & 0x1F);
+    }
+    
+    static boolean isLeapYear(long year) {
+        return ((year & 3) == 0) && ((year % 100) != 0 || (year % 400) == 0);
+    }
+    
+    static int lengthOfMonth(long year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
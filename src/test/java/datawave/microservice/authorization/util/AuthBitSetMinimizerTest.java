@@ -0,0 +1,90 @@
+package datawave.microservice.authorization.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.jupiter.api.Test;
+
+import datawave.security.util.AuthorizationsMinimizer;
+
+public class AuthBitSetMinimizerTest {
+    
+    @Test
+    public void testMinimize() {
+        Authorizations abc = new Authorizations("A", "B", "C");
+        Authorizations ab = new Authorizations("A", "B");
+        Authorizations bd = new Authorizations("B", "D");
+        Authorizations abd = new Authorizations("A", "B", "D");
+        
+        Collection<Authorizations> minimized = AuthBitSetMinimizer.minimize(Arrays.asList(abc, ab, bd, abd));
+        assertEquals(Arrays.asList(ab, bd), new ArrayList<>(minimized));
+        // the kept authorizations are not rebuilt
+        assertSame(ab, minimized.iterator().next());
+        
+        // duplicates are collapsed to the first
+        Authorizations otherAb = new Authorizations("B", "A");
+        assertSame(ab, AuthBitSetMinimizer.minimize(Arrays.asList(ab, otherAb)).iterator().next());
+        assertEquals(1, AuthBitSetMinimizer.minimize(Arrays.asList(ab, otherAb)).size());
+    }
+    
+    @Test
+    public void testNothingToMinimize() {
+        List<Authorizations> disjoint = Arrays.asList(new Authorizations("A"), new Authorizations("B"), new Authorizations("C", "D"));
+        assertSame(disjoint, AuthBitSetMinimizer.minimize(disjoint));
+        List<Authorizations> single = Collections.singletonList(new Authorizations("A"));
+        assertSame(single, AuthBitSetMinimizer.minimize(single));
+        assertEquals(Collections.singletonList(new Authorizations()),
+                        new ArrayList<>(AuthBitSetMinimizer.minimize(Arrays.asList(new Authorizations("A"), new Authorizations()))));
+    }
+    
+    @Test
+    public void testInvalidUtf8() {
+        Authorizations invalid = new Authorizations(Collections.singletonList(new byte[] {(byte) 0xC3}));
+        Authorizations alsoInvalid = new Authorizations(Arrays.asList(new byte[] {(byte) 0xC3}, new byte[] {(byte) 0xC4}));
+        Authorizations replacement = new Authorizations(Collections.singletonList("\ufffd".getBytes(StandardCharsets.UTF_8)));
+        List<Authorizations> auths = Arrays.asList(alsoInvalid, replacement, invalid);
+        assertEquals(new ArrayList<>(AuthorizationsMinimizer.minimize(auths)), new ArrayList<>(AuthBitSetMinimizer.minimize(auths)));
+        assertEquals(2, AuthBitSetMinimizer.minimize(auths).size());
+    }
+    
+    @Test
+    public void testMatchesAuthorizationsMinimizer() {
+        Random random = new Random(13);
+        for (int n = 0; n < 500; n++) {
+            List<Authorizations> chain = randomChain(random, 2 + random.nextInt(20));
+            Collection<Authorizations> expected = AuthorizationsMinimizer.minimize(chain);
+            Collection<Authorizations> minimized = AuthBitSetMinimizer.minimize(chain);
+            assertEquals(new ArrayList<>(expected), new ArrayList<>(minimized));
+            assertEquals(expected == chain, minimized == chain);
+        }
+    }
+    
+    /**
+     * A chain of entities whose auths are drawn from a small vocabulary, so that some are subsets of others, with some repeated.
+     */
+    static List<Authorizations> randomChain(Random random, int entities) {
+        List<Authorizations> chain = new ArrayList<>();
+        for (int i = 0; i < entities; i++) {
+            if (i > 0 && random.nextInt(5) == 0) {
+                chain.add(chain.get(random.nextInt(i)));
+                continue;
+            }
+            List<String> auths = new ArrayList<>();
+            int size = random.nextInt(12);
+            for (int j = 0; j < size; j++) {
+                auths.add("AUTH_" + random.nextInt(16));
+            }
+            chain.add(new Authorizations(auths.toArray(new String[0])));
+        }
+        return chain;
+    }
+}
@@ -0,0 +1,126 @@
+package datawave.microservice.authorization.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.jupiter.api.Test;
+
+public class AuthBitSetTest {
+    
+    @Test
+    public void testDictionary() {
+        AuthDictionary dictionary = new AuthDictionary();
+        assertEquals(-1, dictionary.lookup("A"));
+        assertEquals(0, dictionary.encode("A"));
+        assertEquals(1, dictionary.encode("B"));
+        assertEquals(0, dictionary.encode("A"));
+        assertEquals(1, dictionary.lookup("B"));
+        assertEquals("B", dictionary.decode(1));
+        assertEquals(2, dictionary.size());
+        
+        // grows past the initial capacity
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i + 2, dictionary.encode("auth" + i));
+        }
+        assertEquals("auth999", dictionary.decode(1001));
+    }
+    
+    @Test
+    public void testFullDictionary() {
+        AuthDictionary dictionary = new AuthDictionary(2);
+        assertEquals(0, dictionary.encode("A"));
+        assertEquals(1, dictionary.encode("B"));
+        assertEquals(-1, dictionary.encode("C"));
+        assertEquals(0, dictionary.encode("A"));
+        assertEquals(2, dictionary.size());
+        
+        assertEquals(2, AuthBitSet.encode(dictionary, Arrays.asList("A", "B")).size());
+        assertNull(AuthBitSet.encode(dictionary, Arrays.asList("A", "C")));
+        assertThrows(IllegalArgumentException.class, () -> new AuthDictionary(-1));
+    }
+    
+    @Test
+    public void testSetOperations() {
+        AuthDictionary dictionary = new AuthDictionary();
+        AuthBitSet ab = AuthBitSet.encode(dictionary, Arrays.asList("A", "B"));
+        AuthBitSet bc = AuthBitSet.encode(dictionary, Arrays.asList("B", "C", "B"));
+        
+        assertEquals(Arrays.asList("A", "B", "C"), ab.or(bc).toList());
+        assertEquals(Arrays.asList("B"), ab.and(bc).toList());
+        assertEquals(Arrays.asList("A"), ab.andNot(bc).toList());
+        assertEquals(2, bc.size());
+        assertTrue(ab.or(bc).containsAll(bc));
+        assertFalse(ab.containsAll(bc));
+        assertTrue(ab.contains("A"));
+        assertFalse(ab.contains("C"));
+        assertFalse(ab.contains("D"));
+        assertTrue(ab.andNot(ab).isEmpty());
+        assertEquals(AuthBitSet.empty(dictionary), ab.andNot(ab));
+        assertEquals(new Authorizations("A", "B"), ab.toAuthorizations());
+        assertEquals("A,B", ab.toString());
+    }
+    
+    @Test
+    public void testLookup() {
+        AuthDictionary dictionary = new AuthDictionary();
+        AuthBitSet ab = AuthBitSet.encode(dictionary, Arrays.asList("A", "B", null));
+        assertEquals(ab, AuthBitSet.lookup(dictionary, Arrays.asList("B", "A")));
+        assertNull(AuthBitSet.lookup(dictionary, Arrays.asList("A", "C")));
+        assertEquals(2, dictionary.size());
+    }
+    
+    @Test
+    public void testDifferentDictionaries() {
+        AuthBitSet a = AuthBitSet.encode(new AuthDictionary(), Arrays.asList("A"));
+        AuthBitSet b = AuthBitSet.encode(new AuthDictionary(), Arrays.asList("A"));
+        assertFalse(a.equals(b));
+        assertThrows(IllegalArgumentException.class, () -> a.or(b));
+    }
+    
+    @Test
+    public void testMatchesHashSets() {
+        AuthDictionary dictionary = new AuthDictionary();
+        Random random = new Random(7);
+        for (int n = 0; n < 500; n++) {
+            Set<String> first = randomAuths(random);
+            Set<String> second = randomAuths(random);
+            AuthBitSet firstBits = AuthBitSet.encode(dictionary, first);
+            AuthBitSet secondBits = AuthBitSet.encode(dictionary, second);
+            
+            Set<String> union = new HashSet<>(first);
+            union.addAll(second);
+            Set<String> intersection = new HashSet<>(first);
+            intersection.retainAll(second);
+            Set<String> difference = new HashSet<>(first);
+            difference.removeAll(second);
+            
+            assertEquals(union, new HashSet<>(firstBits.or(secondBits).toList()));
+            assertEquals(intersection, new HashSet<>(firstBits.and(secondBits).toList()));
+            assertEquals(difference, new HashSet<>(firstBits.andNot(secondBits).toList()));
+            assertEquals(first.containsAll(second), firstBits.containsAll(secondBits));
+            assertEquals(difference.isEmpty(), firstBits.andNot(secondBits).isEmpty());
+            assertArrayEquals(firstBits.toList().toArray(), firstBits.toArray());
+        }
+    }
+    
+    private static Set<String> randomAuths(Random random) {
+        List<String> auths = new ArrayList<>();
+        int size = random.nextInt(300);
+        for (int i = 0; i < size; i++) {
+            auths.add("AUTH_" + random.nextInt(400));
+        }
+        return new HashSet<>(auths);
+    }
+}
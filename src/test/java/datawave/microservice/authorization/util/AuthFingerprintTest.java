@@ -0,0 +1,99 @@
+package datawave.microservice.authorization.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class AuthFingerprintTest {
+    
+    @Test
+    public void testSubsets() {
+        AuthDictionary dictionary = new AuthDictionary();
+        AuthFingerprint abc = AuthFingerprint.of(dictionary, Arrays.asList("A", "B", "C", "B", null));
+        AuthFingerprint ab = AuthFingerprint.of(dictionary, Arrays.asList("B", "A"));
+        AuthFingerprint empty = AuthFingerprint.of(dictionary, Collections.emptyList());
+        
+        assertEquals(3, abc.size());
+        assertTrue(ab.isSubsetOf(abc));
+        assertFalse(abc.isSubsetOf(ab));
+        assertTrue(abc.isSubsetOf(abc));
+        assertTrue(empty.isSubsetOf(ab));
+        assertFalse(AuthFingerprint.of(dictionary, Arrays.asList("A", "D")).isSubsetOf(abc));
+        assertEquals(ab, AuthFingerprint.of(dictionary, Arrays.asList("A", "B")));
+        assertThrows(IllegalArgumentException.class, () -> ab.isSubsetOf(AuthFingerprint.of(new AuthDictionary(), Arrays.asList("A", "B"))));
+    }
+    
+    @Test
+    public void testContainsRequested() {
+        AuthDictionary dictionary = new AuthDictionary();
+        AuthFingerprint abc = AuthFingerprint.of(dictionary, Arrays.asList("A", "B", "C"));
+        assertTrue(abc.containsRequested(" A , C,,"));
+        assertTrue(abc.containsRequested(""));
+        assertTrue(abc.containsRequested(null));
+        assertFalse(abc.containsRequested("A,D"));
+        assertTrue(abc.contains("B"));
+        assertFalse(abc.contains("D"));
+        // looking up an unknown auth does not add it
+        assertEquals(3, dictionary.size());
+    }
+    
+    @Test
+    public void testFullDictionary() {
+        // C and D never get an id, so they are compared as strings
+        AuthDictionary dictionary = new AuthDictionary(2);
+        AuthFingerprint abcd = AuthFingerprint.of(dictionary, Arrays.asList("A", "B", "C", "D"));
+        AuthFingerprint ac = AuthFingerprint.of(dictionary, Arrays.asList("C", "A"));
+        AuthFingerprint ae = AuthFingerprint.of(dictionary, Arrays.asList("A", "E"));
+        assertEquals(4, abcd.size());
+        assertTrue(ac.isSubsetOf(abcd));
+        assertFalse(abcd.isSubsetOf(ac));
+        assertFalse(ae.isSubsetOf(abcd));
+        assertTrue(abcd.contains("D"));
+        assertFalse(abcd.contains("E"));
+        assertTrue(abcd.containsRequested("A,C,D"));
+        assertFalse(abcd.containsRequested("A,E"));
+        assertEquals(ac, AuthFingerprint.of(dictionary, Arrays.asList("A", "C")));
+        assertEquals(ac.hashCode(), AuthFingerprint.of(dictionary, Arrays.asList("A", "C")).hashCode());
+        assertFalse(ac.equals(AuthFingerprint.of(dictionary, Arrays.asList("A", "D"))));
+        assertEquals(2, dictionary.size());
+    }
+    
+    @Test
+    public void testMatchesHashSets() {
+        AuthDictionary dictionary = new AuthDictionary();
+        Random random = new Random(3);
+        for (int n = 0; n < 1000; n++) {
+            Set<String> first = randomAuths(random, 100);
+            Set<String> second = randomAuths(random, 100);
+            // mostly subsets, as a query user's auths are of the primary user's
+            if (random.nextBoolean()) {
+                second.retainAll(first);
+            }
+            AuthFingerprint firstPrint = AuthFingerprint.of(dictionary, first);
+            AuthFingerprint secondPrint = AuthFingerprint.of(dictionary, second);
+            assertEquals(first.containsAll(second), secondPrint.isSubsetOf(firstPrint));
+            assertEquals(second.containsAll(first), firstPrint.isSubsetOf(secondPrint));
+            assertEquals(first.containsAll(second), firstPrint.containsRequested(String.join(",", second)));
+        }
+    }
+    
+    private static Set<String> randomAuths(Random random, int maxSize) {
+        List<String> auths = new ArrayList<>();
+        int size = random.nextInt(maxSize);
+        for (int i = 0; i < size; i++) {
+            auths.add("AUTH_" + random.nextInt(300));
+        }
+        return new HashSet<>(auths);
+    }
+}
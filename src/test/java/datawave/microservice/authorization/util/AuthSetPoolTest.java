@@ -0,0 +1,51 @@
+package datawave.microservice.authorization.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.jupiter.api.Test;
+
+public class AuthSetPoolTest {
+    
+    @Test
+    public void testCanonicalSets() {
+        AuthSetPool pool = new AuthSetPool();
+        Set<String> first = pool.canonical(Arrays.asList("A", "B", "C"));
+        Set<String> second = pool.canonical(new HashSet<>(Arrays.asList("C", "B", "A", "A")));
+        assertSame(first, second);
+        assertEquals(new HashSet<>(Arrays.asList("A", "B", "C")), first);
+        assertNotSame(first, pool.canonical(Arrays.asList("A", "B")));
+        assertThrows(UnsupportedOperationException.class, () -> first.add("D"));
+        // pools are independent
+        assertNotSame(first, new AuthSetPool().canonical(Arrays.asList("A", "B", "C")));
+    }
+    
+    @Test
+    public void testCanonicalAuthorizations() {
+        AuthSetPool pool = new AuthSetPool();
+        Authorizations first = new Authorizations("A", "B");
+        assertSame(first, pool.canonical(first));
+        assertSame(first, pool.canonical(new Authorizations("B", "A")));
+        assertNotSame(first, pool.canonical(new Authorizations("A")));
+    }
+    
+    @Test
+    public void testToAuthorizations() {
+        AuthSetPool pool = new AuthSetPool();
+        Authorizations auths = pool.toAuthorizations(new LinkedHashSet<>(Arrays.asList("B", "A")));
+        assertEquals(new Authorizations("A", "B"), auths);
+        assertSame(auths, pool.toAuthorizations(Arrays.asList("A", "B")));
+        assertSame(auths, pool.canonical(new Authorizations("A", "B")));
+        // a different set of strings for the same authorizations
+        assertSame(auths, pool.toAuthorizations(Arrays.asList("A ", "B")));
+        assertEquals(new Authorizations(), pool.toAuthorizations(new HashSet<>()));
+    }
+}
@@ -0,0 +1,111 @@
+package datawave.microservice.authorization.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.jupiter.api.Test;
+
+public class AuthStringRendererTest {
+    
+    @Test
+    public void testEnabled() {
+        // the order this reproduces matches the Accumulo and JDK versions on the classpath
+        assertTrue(AuthStringRenderer.isEnabled());
+    }
+    
+    @Test
+    public void testRender() {
+        List<List<String>> userAuths = Arrays.asList(Arrays.asList("A", "B", "C"), Arrays.asList("C", "D"), Collections.emptyList());
+        assertEquals(expected(userAuths), AuthStringRenderer.render(userAuths));
+        assertEquals("", AuthStringRenderer.render(Collections.singletonList(Collections.emptyList())));
+        assertEquals("", AuthStringRenderer.render(Collections.emptyList()));
+        assertEquals(expected(userAuths), AuthorizationsUtil.buildAuthorizationString(userAuths));
+    }
+    
+    @Test
+    public void testMatchesAuthorizations() {
+        Random random = new Random(5);
+        for (int n = 0; n < 500; n++) {
+            List<List<String>> userAuths = new ArrayList<>();
+            int users = 1 + random.nextInt(4);
+            for (int i = 0; i < users; i++) {
+                List<String> auths = new ArrayList<>();
+                int size = random.nextInt(200);
+                for (int j = 0; j < size; j++) {
+                    auths.add(randomAuth(random));
+                }
+                userAuths.add(auths);
+            }
+            assertEquals(expected(userAuths), AuthStringRenderer.render(userAuths));
+        }
+    }
+    
+    @Test
+    public void testCollidingAuths() {
+        // "Aa" and "BB" have the same hash, so every auth made of them lands in the same bucket
+        List<String> auths = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            auths.add(colliding(i, 4));
+        }
+        List<List<String>> userAuths = Collections.singletonList(auths);
+        assertEquals(expected(userAuths), AuthStringRenderer.render(userAuths));
+        
+        // enough to be turned into a tree
+        auths.add(colliding(8, 4));
+        assertNull(AuthStringRenderer.render(userAuths));
+        assertEquals(expected(userAuths).length(), AuthorizationsUtil.buildAuthorizationString(userAuths).length());
+    }
+    
+    @Test
+    public void testFallsBack() {
+        assertNull(AuthStringRenderer.render(Collections.singletonList(Arrays.asList("A", null))));
+        assertNull(AuthStringRenderer.render(Collections.singletonList(Arrays.asList("A", ""))));
+        assertNull(AuthStringRenderer.render(Arrays.asList(Collections.singletonList("A"), null)));
+        assertNull(AuthStringRenderer.render(Collections.singletonList(Collections.singletonList("A\ud83d\ude00"))));
+    }
+    
+    /**
+     * The auths, rendered by an {@link Authorizations} built from them in the order they are first seen.
+     */
+    private static String expected(Collection<? extends Collection<String>> userAuths) {
+        LinkedHashSet<String> distinct = new LinkedHashSet<>();
+        userAuths.forEach(distinct::addAll);
+        List<byte[]> bytes = new ArrayList<>();
+        for (String auth : distinct) {
+            bytes.add(auth.getBytes(StandardCharsets.UTF_8));
+        }
+        return new Authorizations(bytes).toString();
+    }
+    
+    private static String randomAuth(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return "AUTH_" + random.nextInt(500);
+            case 1:
+                return "\u00e9" + random.nextInt(100);
+            case 2:
+                return "\u4e2d" + random.nextInt(100);
+            default:
+                return Integer.toString(random.nextInt(1000), 36);
+        }
+    }
+    
+    private static String colliding(int bits, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(((bits >> i) & 1) == 0 ? "Aa" : "BB");
+        }
+        return sb.toString();
+    }
+}
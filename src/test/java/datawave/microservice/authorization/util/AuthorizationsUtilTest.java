@@ -0,0 +1,184 @@
+package datawave.microservice.authorization.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+
+import datawave.accumulo.util.security.UserAuthFunctions;
+import datawave.security.authorization.AuthorizationException;
+import datawave.security.authorization.DatawaveUser;
+import datawave.security.authorization.ProxiedUserDetails;
+import datawave.security.authorization.SubjectIssuerDNPair;
+
+public class AuthorizationsUtilTest {
+    
+    private static final List<List<String>> USER_AUTHS = Arrays.asList(Arrays.asList("A", "B", "C", "D"), Arrays.asList("A", "C", "E"),
+                    Collections.emptyList());
+    
+    @Test
+    public void testMergeWithoutRequestedAuths() {
+        Set<Authorizations> expected = new HashSet<>(Arrays.asList(new Authorizations("A", "B", "C", "D"), new Authorizations("A", "C", "E"),
+                        new Authorizations()));
+        assertEquals(expected, AuthorizationsUtil.mergeAuthorizations(null, USER_AUTHS));
+        assertEquals(expected, AuthorizationsUtil.mergeAuthorizations("", USER_AUTHS));
+        assertEquals(Collections.singleton(new Authorizations()), AuthorizationsUtil.mergeAuthorizations("A", null));
+    }
+    
+    @Test
+    public void testMergeWithRequestedAuths() {
+        Set<Authorizations> expected = new HashSet<>(Arrays.asList(new Authorizations("A", "B"), new Authorizations("A", "E"), new Authorizations()));
+        assertEquals(expected, AuthorizationsUtil.mergeAuthorizations(" A, B,,E ", USER_AUTHS));
+    }
+    
+    @Test
+    public void testMergeWithMissingAuths() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> AuthorizationsUtil.mergeAuthorizations("A,F,NEVER_SEEN", USER_AUTHS));
+        assertEquals("User requested authorizations that they don't have. Missing: " + new HashSet<>(Arrays.asList("F", "NEVER_SEEN")) + ", Requested: "
+                        + new HashSet<>(Arrays.asList("A", "F", "NEVER_SEEN")) + ", User: " + USER_AUTHS, e.getMessage());
+        
+        // F is known to the dictionary once another user has it
+        AuthorizationsUtil.mergeAuthorizations("F", Collections.singleton(Collections.singleton("F")));
+        e = assertThrows(IllegalArgumentException.class, () -> AuthorizationsUtil.mergeAuthorizations("A,F", USER_AUTHS));
+        assertEquals("User requested authorizations that they don't have. Missing: [F], Requested: " + new HashSet<>(Arrays.asList("A", "F")) + ", User: "
+                        + USER_AUTHS, e.getMessage());
+    }
+    
+    @Test
+    public void testMergeSeesChangedAuths() {
+        // a caller may reuse a collection and change it between calls
+        Set<String> auths = new HashSet<>(Arrays.asList("A", "B"));
+        assertEquals(Collections.singleton(new Authorizations("A", "B")), AuthorizationsUtil.mergeAuthorizations("A,B", Collections.singleton(auths)));
+        auths.remove("B");
+        assertThrows(IllegalArgumentException.class, () -> AuthorizationsUtil.mergeAuthorizations("A,B", Collections.singleton(auths)));
+        assertEquals(Collections.singleton(new Authorizations("A")), AuthorizationsUtil.mergeAuthorizations("A", Collections.singleton(auths)));
+    }
+    
+    @Test
+    public void testMergeIgnoresNullAuths() {
+        Collection<String> auths = new HashSet<>(Arrays.asList("A", null));
+        assertEquals(Collections.singleton(new Authorizations("A")), AuthorizationsUtil.mergeAuthorizations("A", Collections.singleton(auths)));
+    }
+    
+    @Test
+    public void testGetUserAuthorizations() throws AuthorizationException {
+        DatawaveUser user = user("cn=user", Arrays.asList("A", "B", "C"));
+        DatawaveUser queryUser = user("cn=query", Arrays.asList("A", "B"));
+        ProxiedUserDetails overall = details(user);
+        ProxiedUserDetails query = details(queryUser);
+        
+        assertEquals(new Authorizations("A", "B"), AuthorizationsUtil.getUserAuthorizations("A,B", overall, query));
+        // auths the user does not hold are rejected by the validation, with its own exception and message
+        for (String requested : Arrays.asList("A,Z", "NEVER_SEEN_BY_ANYONE", "A, B,C,D")) {
+            AuthorizationException expected = assertThrows(AuthorizationException.class,
+                            () -> UserAuthFunctions.getInstance().validateRequestedAuthorizations(requested, user));
+            AuthorizationException e = assertThrows(AuthorizationException.class, () -> AuthorizationsUtil.getUserAuthorizations(requested, overall, query));
+            assertEquals(expected.getMessage(), e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testUnion() {
+        Authorizations union = AuthorizationsUtil.union(new Authorizations("A", "B"), Arrays.asList(bytes("B"), bytes("C"), bytes("C")));
+        assertEquals(new Authorizations("A", "B", "C"), union);
+        assertEquals(new Authorizations(), AuthorizationsUtil.union(Collections.emptyList(), new Authorizations()));
+    }
+    
+    @Test
+    public void testUnionAll() {
+        Random random = new Random(11);
+        List<Authorizations> chain = new ArrayList<>();
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            List<String> auths = new ArrayList<>();
+            for (int j = random.nextInt(2000); j > 0; j--) {
+                auths.add("AUTH_" + random.nextInt(3000));
+            }
+            expected.addAll(auths);
+            chain.add(new Authorizations(auths.toArray(new String[0])));
+        }
+        assertEquals(new Authorizations(expected.toArray(new String[0])), AuthorizationsUtil.unionAll(chain));
+        assertEquals(new Authorizations(), AuthorizationsUtil.unionAll(Collections.emptyList()));
+    }
+    
+    @Test
+    public void testDistinctAuthList() {
+        DistinctAuthList list = new DistinctAuthList(0);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(list.addAuth(bytes("AUTH_" + i)));
+            assertFalse(list.addAuth(bytes("AUTH_" + (i / 2))));
+        }
+        assertEquals(100, list.size());
+        assertEquals("AUTH_42", new String(list.get(42), StandardCharsets.UTF_8));
+    }
+    
+    private static byte[] bytes(String auth) {
+        return auth.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Test
+    public void testSplitAuths() {
+        assertEquals(Arrays.asList("A", "B", "C"), AuthorizationsUtil.splitAuths(" A,B ,, C,"));
+        assertEquals(Collections.emptyList(), AuthorizationsUtil.splitAuths(""));
+        assertEquals(Collections.emptyList(), AuthorizationsUtil.splitAuths(" , ,"));
+        assertEquals(Arrays.asList("A B"), AuthorizationsUtil.splitAuths("\u3000A B\t"));
+    }
+    
+    @Test
+    public void testSplitAuthsMatchesSplitter() {
+        Splitter splitter = Splitter.on(',').omitEmptyStrings().trimResults();
+        char[] chars = {'A', 'b', ',', ' ', '\t', '\n', '\u00a0', '\u2003', '\u001f', '\u0085', '_'};
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(12); j > 0; j--) {
+                sb.append(chars[random.nextInt(chars.length)]);
+            }
+            String auths = sb.toString();
+            assertEquals(Lists.newArrayList(splitter.split(auths)), AuthorizationsUtil.splitAuths(auths), auths);
+        }
+    }
+    
+    @Test
+    public void testPrepareAuthsForMerge() {
+        Authorizations auths = new Authorizations("A", "B", "C");
+        assertEquals(Collections.singleton(new HashSet<>(Arrays.asList(auths.toString().split(",")))), AuthorizationsUtil.prepareAuthsForMerge(auths));
+        assertEquals(Collections.singleton(Collections.singleton("")), AuthorizationsUtil.prepareAuthsForMerge(new Authorizations()));
+    }
+    
+    private static DatawaveUser user(String dn, Collection<String> auths) {
+        return new DatawaveUser(SubjectIssuerDNPair.of(dn, "cn=issuer"), DatawaveUser.UserType.USER, null, auths, null, null, System.currentTimeMillis(),
+                        -1L);
+    }
+    
+    private static ProxiedUserDetails details(DatawaveUser user) {
+        return (ProxiedUserDetails) Proxy.newProxyInstance(ProxiedUserDetails.class.getClassLoader(), new Class<?>[] {ProxiedUserDetails.class},
+                        (proxy, method, args) -> {
+                            switch (method.getName()) {
+                                case "getPrimaryUser":
+                                    return user;
+                                case "getProxiedUsers":
+                                    return Collections.singletonList(user);
+                                default:
+                                    throw new UnsupportedOperationException(method.getName());
+                            }
+                        });
+    }
+}
@@ -0,0 +1,139 @@
+package datawave.microservice.authorization.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.security.authorization.AuthorizationException;
+import datawave.security.authorization.DatawaveUser;
+import datawave.security.authorization.SubjectIssuerDNPair;
+
+public class DowngradedAuthorizationsCacheTest {
+    
+    private static final long FAR_FUTURE = System.currentTimeMillis() + 3600000L;
+    
+    private DowngradedAuthorizationsCache cache;
+    private AtomicInteger loads;
+    private DowngradedAuthorizationsCache.Loader loader;
+    
+    @BeforeEach
+    public void setUp() {
+        cache = new DowngradedAuthorizationsCache(100, null);
+        loads = new AtomicInteger();
+        loader = () -> {
+            loads.incrementAndGet();
+            return new HashSet<>(Collections.singleton(new Authorizations("A")));
+        };
+    }
+    
+    @Test
+    public void testHit() throws AuthorizationException {
+        DatawaveUser user = user("cn=user", 1L, FAR_FUTURE);
+        DatawaveUser server = user("cn=server", 1L, FAR_FUTURE);
+        List<DatawaveUser> chain = Arrays.asList(user, server);
+        
+        Set<Authorizations> first = get("A", user, chain);
+        assertSame(first, get("A", user, chain));
+        // an equal user loaded separately shares the entry
+        DatawaveUser sameUser = user("cn=user", 1L, FAR_FUTURE);
+        assertSame(first, get("A", sameUser, Arrays.asList(sameUser, server)));
+        assertEquals(1, loads.get());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(new Authorizations("B")));
+        
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2.0 / 3.0, cache.getHitRate(), 0.0001);
+    }
+    
+    @Test
+    public void testMiss() throws AuthorizationException {
+        DatawaveUser user = user("cn=user", 1L, FAR_FUTURE);
+        DatawaveUser server = user("cn=server", 1L, FAR_FUTURE);
+        
+        get("A", user, Arrays.asList(user, server));
+        get("A,B", user, Arrays.asList(user, server));
+        get(null, user, Arrays.asList(user, server));
+        // a reloaded user
+        get("A", user, Arrays.asList(user, user("cn=server", 2L, FAR_FUTURE)));
+        // a different chain
+        get("A", user, Arrays.asList(user, user("cn=server2", 1L, FAR_FUTURE)));
+        get("A", user, Collections.singletonList(user));
+        assertEquals(6, loads.get());
+        assertEquals(6, cache.size());
+    }
+    
+    @Test
+    public void testUserExpiration() throws AuthorizationException {
+        DatawaveUser user = user("cn=user", 1L, FAR_FUTURE);
+        DatawaveUser expired = user("cn=server", 1L, System.currentTimeMillis() - 1);
+        get("A", user, Arrays.asList(user, expired));
+        get("A", user, Arrays.asList(user, expired));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+        
+        // no expiration time
+        DatawaveUser server = user("cn=server", 1L, -1L);
+        get("A", user, Arrays.asList(user, server));
+        get("A", user, Arrays.asList(user, server));
+        assertEquals(3, loads.get());
+    }
+    
+    @Test
+    public void testFailuresAreNotCached() {
+        DatawaveUser user = user("cn=user", 1L, FAR_FUTURE);
+        DowngradedAuthorizationsCache.Loader failing = () -> {
+            loads.incrementAndGet();
+            throw new AuthorizationException("missing B");
+        };
+        for (int i = 0; i < 2; i++) {
+            assertThrows(AuthorizationException.class, () -> cache.get("B", user, Collections.singletonList(user), user, Collections.singletonList(user), failing));
+        }
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+    
+    @Test
+    public void testUsersWithDifferentAuths() throws AuthorizationException {
+        // e.g. two merges of remote details in the same millisecond
+        DatawaveUser user = user("cn=user", 1L, FAR_FUTURE);
+        DatawaveUser otherUser = new DatawaveUser(SubjectIssuerDNPair.of("cn=user", "cn=issuer"), DatawaveUser.UserType.USER, null, Arrays.asList("A", "B"),
+                        null, null, 1L, FAR_FUTURE);
+        get("A", user, Collections.singletonList(user));
+        get("A", otherUser, Collections.singletonList(otherUser));
+        assertEquals(2, loads.get());
+        
+        // the same auths in a separately loaded user still share the entry
+        DatawaveUser sameUser = user("cn=user", 1L, FAR_FUTURE);
+        get("A", sameUser, Collections.singletonList(sameUser));
+        assertEquals(2, loads.get());
+    }
+    
+    @Test
+    public void testEviction() throws AuthorizationException {
+        cache = new DowngradedAuthorizationsCache(1, null);
+        DatawaveUser user = user("cn=user", 1L, FAR_FUTURE);
+        get("A", user, Collections.singletonList(user));
+        get("B", user, Collections.singletonList(user));
+        assertEquals(1, cache.getEvictionCount());
+    }
+    
+    private Set<Authorizations> get(String requestedAuths, DatawaveUser primaryUser, List<DatawaveUser> users) throws AuthorizationException {
+        return cache.get(requestedAuths, primaryUser, users, primaryUser, users, loader);
+    }
+    
+    private static DatawaveUser user(String dn, long creationTime, long expirationTime) {
+        return new DatawaveUser(SubjectIssuerDNPair.of(dn, "cn=issuer"), DatawaveUser.UserType.USER, null, Collections.singleton("A"), null, null, creationTime,
+                        expirationTime);
+    }
+}
@@ -0,0 +1,166 @@
+package datawave.microservice.authorization.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+
+import datawave.security.authorization.DatawaveUser;
+import datawave.security.authorization.SubjectIssuerDNPair;
+
+public class ProxiedUserDetailsMergerTest {
+    
+    @Test
+    public void testMergeUsers() {
+        DatawaveUser first = user("cn=user", DatawaveUser.UserType.USER, Arrays.asList("A", "B"), "R1");
+        DatawaveUser second = user("cn=user", DatawaveUser.UserType.USER, Arrays.asList("B", "C"), "R2");
+        DatawaveUser third = user("cn=user", DatawaveUser.UserType.USER, Collections.singletonList("D"), "R1");
+        
+        DatawaveUser merged = AuthorizationsUtil.mergeUsers(first, second, third);
+        assertEquals(new HashSet<>(Arrays.asList("A", "B", "C", "D")), new HashSet<>(merged.getAuths()));
+        assertEquals(new HashSet<>(Arrays.asList("R1", "R2")), new HashSet<>(merged.getRoles()));
+        assertEquals(HashMultimap.create(AuthorizationsUtil.mergeUsers(AuthorizationsUtil.mergeUsers(first, second), third).getRoleToAuthMapping()),
+                        HashMultimap.create(merged.getRoleToAuthMapping()));
+        assertSame(first, AuthorizationsUtil.mergeUsers(first));
+        assertEquals(null, AuthorizationsUtil.mergeUsers());
+    }
+    
+    @Test
+    public void testMergeUsersRejectsDifferentUsers() {
+        DatawaveUser user = user("cn=user", DatawaveUser.UserType.USER, Collections.singletonList("A"), "R1");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                        () -> AuthorizationsUtil.mergeUsers(user, user("cn=other", DatawaveUser.UserType.USER, Collections.singletonList("A"), "R1")));
+        assertEquals("Cannot merge different users: " + SubjectIssuerDNPair.of("cn=other", "cn=issuer") + " and " + user.getDn(), e.getMessage());
+        e = assertThrows(IllegalArgumentException.class,
+                        () -> AuthorizationsUtil.mergeUsers(user, user("cn=user", DatawaveUser.UserType.SERVER, Collections.singletonList("A"), "R1")));
+        assertEquals("Cannot merge users of different types", e.getMessage());
+    }
+    
+    @Test
+    public void testOrder() {
+        DatawaveUser user = user("cn=user", DatawaveUser.UserType.USER, Collections.singletonList("A"), "R1");
+        DatawaveUser server1 = user("cn=server1", DatawaveUser.UserType.SERVER, Collections.singletonList("A"), "R1");
+        DatawaveUser server2 = user("cn=server2", DatawaveUser.UserType.SERVER, Collections.singletonList("A"), "R1");
+        DatawaveUser server3 = user("cn=server3", DatawaveUser.UserType.SERVER, Collections.singletonList("B"), "R1");
+        
+        ProxiedUserDetailsMerger<?> merger = new ProxiedUserDetailsMerger<>();
+        merger.addUsers(user, Arrays.asList(user, server1));
+        merger.addUsers(user, Arrays.asList(server3, user, server2));
+        List<DatawaveUser> merged = merger.buildUsers();
+        assertEquals(Arrays.asList(user.getDn(), server1.getDn(), server3.getDn(), server2.getDn()), dns(merged));
+        // users seen once are kept as they are
+        assertSame(server1, merged.get(1));
+        assertSame(server3, merged.get(2));
+    }
+    
+    @Test
+    public void testDifferentPrimaryUsers() {
+        DatawaveUser user = user("cn=user", DatawaveUser.UserType.USER, Collections.singletonList("A"), "R1");
+        DatawaveUser other = user("cn=other", DatawaveUser.UserType.USER, Collections.singletonList("A"), "R1");
+        ProxiedUserDetailsMerger<?> merger = new ProxiedUserDetailsMerger<>();
+        merger.addUsers(user, Collections.singletonList(user));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> merger.addUsers(other, Collections.singletonList(other)));
+        assertEquals("Cannot merge datawaveUserDetailss with different primary users: " + user.getDn() + " vs " + other.getDn(), e.getMessage());
+    }
+    
+    @Test
+    public void testMatchesPairwiseMerge() {
+        Random random = new Random(11);
+        for (int n = 0; n < 300; n++) {
+            List<List<DatawaveUser>> chains = new ArrayList<>();
+            int count = 2 + random.nextInt(6);
+            for (int i = 0; i < count; i++) {
+                chains.add(randomChain(random));
+            }
+            
+            ProxiedUserDetailsMerger<?> merger = new ProxiedUserDetailsMerger<>();
+            List<DatawaveUser> expected = null;
+            for (List<DatawaveUser> chain : chains) {
+                merger.addUsers(chain.get(0), chain);
+                expected = (expected == null) ? chain : pairwiseMerge(expected, chain);
+            }
+            List<DatawaveUser> merged = merger.buildUsers();
+            
+            assertEquals(dns(expected), dns(merged));
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(new HashSet<>(expected.get(i).getAuths()), new HashSet<>(merged.get(i).getAuths()));
+                assertEquals(new HashSet<>(expected.get(i).getRoles()), new HashSet<>(merged.get(i).getRoles()));
+                assertEquals(HashMultimap.create(expected.get(i).getRoleToAuthMapping()), HashMultimap.create(merged.get(i).getRoleToAuthMapping()));
+            }
+        }
+    }
+    
+    /**
+     * The merge of two chains that {@link AuthorizationsUtil#mergeProxiedUserDetails(datawave.security.authorization.ProxiedUserDetails[])} used to repeat
+     * for each pair of details.
+     */
+    private static List<DatawaveUser> pairwiseMerge(List<DatawaveUser> merged, List<DatawaveUser> next) {
+        LinkedHashMap<SubjectIssuerDNPair,DatawaveUser> users = new LinkedHashMap<>();
+        for (DatawaveUser user : merged) {
+            users.putIfAbsent(user.getDn(), user);
+        }
+        LinkedHashMap<SubjectIssuerDNPair,DatawaveUser> extraProxies = new LinkedHashMap<>();
+        for (DatawaveUser user : next) {
+            if (users.containsKey(user.getDn())) {
+                DatawaveUser existing = users.get(user.getDn());
+                Multimap<String,String> roleToAuth = HashMultimap.create(existing.getRoleToAuthMapping());
+                roleToAuth.putAll(user.getRoleToAuthMapping());
+                HashSet<String> auths = new HashSet<>(existing.getAuths());
+                auths.addAll(user.getAuths());
+                HashSet<String> roles = new HashSet<>(existing.getRoles());
+                roles.addAll(user.getRoles());
+                users.put(user.getDn(), new DatawaveUser(user.getDn(), user.getUserType(), auths, roles, roleToAuth, System.currentTimeMillis()));
+            } else {
+                extraProxies.put(user.getDn(), user);
+            }
+        }
+        List<DatawaveUser> mergedUsers = new ArrayList<>(users.values());
+        mergedUsers.addAll(extraProxies.values());
+        return mergedUsers;
+    }
+    
+    private static List<DatawaveUser> randomChain(Random random) {
+        List<DatawaveUser> chain = new ArrayList<>();
+        chain.add(randomUser(random, "cn=user", DatawaveUser.UserType.USER));
+        int servers = random.nextInt(5);
+        for (int i = 0; i < servers; i++) {
+            chain.add(randomUser(random, "cn=server" + random.nextInt(6), DatawaveUser.UserType.SERVER));
+        }
+        return chain;
+    }
+    
+    private static DatawaveUser randomUser(Random random, String dn, DatawaveUser.UserType userType) {
+        List<String> auths = new ArrayList<>();
+        int size = random.nextInt(5);
+        for (int i = 0; i < size; i++) {
+            auths.add("AUTH_" + random.nextInt(10));
+        }
+        return user(dn, userType, auths, "ROLE_" + random.nextInt(3));
+    }
+    
+    private static DatawaveUser user(String dn, DatawaveUser.UserType userType, List<String> auths, String role) {
+        Multimap<String,String> roleToAuth = HashMultimap.create();
+        roleToAuth.putAll(role, auths);
+        return new DatawaveUser(SubjectIssuerDNPair.of(dn, "cn=issuer"), userType, null, auths, Collections.singleton(role), roleToAuth, 1L, -1L);
+    }
+    
+    private static List<SubjectIssuerDNPair> dns(List<DatawaveUser> users) {
+        List<SubjectIssuerDNPair> dns = new ArrayList<>();
+        for (DatawaveUser user : users) {
+            dns.add(user.getDn());
+        }
+        return dns;
+    }
+}
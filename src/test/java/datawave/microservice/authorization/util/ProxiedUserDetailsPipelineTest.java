@@ -0,0 +1,153 @@
+package datawave.microservice.authorization.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.authorization.util.ProxiedUserDetailsPipeline.PartialResultPolicy;
+import datawave.security.authorization.AuthorizationException;
+
+public class ProxiedUserDetailsPipelineTest {
+    
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    
+    @Test
+    public void testSourcesRunConcurrently() throws AuthorizationException {
+        CountDownLatch started = new CountDownLatch(3);
+        Supplier<String> source = () -> {
+            started.countDown();
+            try {
+                // only returns early if all of the sources are running at once
+                return started.await(2, TimeUnit.SECONDS) ? "concurrent" : "serial";
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        assertEquals(Arrays.asList("concurrent", "concurrent", "concurrent"),
+                        fetch(PartialResultPolicy.REQUIRE_ALL, TIMEOUT, Arrays.asList(source, source, source)));
+    }
+    
+    @Test
+    public void testResultsInSourceOrder() throws AuthorizationException {
+        List<Supplier<String>> sources = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // the later sources answer first
+            sources.add(delayed("source" + i, (5 - i) * 20L));
+        }
+        sources.add(() -> null);
+        assertEquals(Arrays.asList("source0", "source1", "source2", "source3", "source4"), fetch(PartialResultPolicy.REQUIRE_ALL, TIMEOUT, sources));
+        assertEquals(Collections.emptyList(), fetch(PartialResultPolicy.REQUIRE_ALL, TIMEOUT, Collections.emptyList()));
+    }
+    
+    @Test
+    public void testTimeout() throws AuthorizationException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Supplier<String> slow = () -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "slow";
+        };
+        List<Supplier<String>> sources = Arrays.asList(() -> "local", slow, () -> "remote");
+        Duration timeout = Duration.ofMillis(100);
+        
+        AuthorizationException e = assertThrows(AuthorizationException.class, () -> fetch(PartialResultPolicy.REQUIRE_ALL, timeout, sources));
+        assertEquals("Timed out after " + timeout + " fetching user details from source 1", e.getMessage());
+        assertEquals(Arrays.asList("local", "remote"), fetch(PartialResultPolicy.REQUIRE_FIRST, timeout, sources));
+        assertEquals(Arrays.asList("local", "remote"), fetch(PartialResultPolicy.REQUIRE_ANY, timeout, sources));
+        // the slow sources were cancelled
+        assertTrue(await(interrupted));
+    }
+    
+    @Test
+    public void testFailures() throws AuthorizationException {
+        IllegalStateException failure = new IllegalStateException("remote is down");
+        Supplier<String> failing = () -> {
+            throw failure;
+        };
+        
+        AuthorizationException e = assertThrows(AuthorizationException.class,
+                        () -> fetch(PartialResultPolicy.REQUIRE_ALL, TIMEOUT, Arrays.asList(() -> "local", failing)));
+        assertEquals("Failed to fetch user details from source 1", e.getMessage());
+        assertEquals(failure, e.getCause());
+        assertEquals(Collections.singletonList("local"), fetch(PartialResultPolicy.REQUIRE_FIRST, TIMEOUT, Arrays.asList(() -> "local", failing)));
+        
+        e = assertThrows(AuthorizationException.class, () -> fetch(PartialResultPolicy.REQUIRE_FIRST, TIMEOUT, Arrays.asList(failing, () -> "remote")));
+        assertEquals("Failed to fetch user details from source 0", e.getMessage());
+        assertEquals(Collections.singletonList("remote"), fetch(PartialResultPolicy.REQUIRE_ANY, TIMEOUT, Arrays.asList(failing, () -> "remote")));
+        
+        e = assertThrows(AuthorizationException.class, () -> fetch(PartialResultPolicy.REQUIRE_ANY, TIMEOUT, Arrays.asList(failing, failing)));
+        assertEquals("Failed to fetch user details from any of 2 sources", e.getMessage());
+        assertEquals(failure, e.getCause());
+    }
+    
+    @Test
+    public void testRejectedSources() throws AuthorizationException {
+        List<Supplier<String>> sources = Arrays.asList(delayed("local", 100), () -> "remote");
+        assertEquals(Collections.singletonList("local"), fetchRejectingSecond(PartialResultPolicy.REQUIRE_FIRST, sources));
+        
+        AuthorizationException e = assertThrows(AuthorizationException.class, () -> fetchRejectingSecond(PartialResultPolicy.REQUIRE_ALL, sources));
+        assertEquals("The executor rejected the fetch of user details from source 1", e.getMessage());
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+    
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ProxiedUserDetailsPipeline<>(null, Duration.ofSeconds(-1), PartialResultPolicy.REQUIRE_ALL));
+        assertThrows(IllegalArgumentException.class, () -> new ProxiedUserDetailsPipeline<>(null, null, PartialResultPolicy.REQUIRE_ALL));
+        assertThrows(IllegalArgumentException.class, () -> new ProxiedUserDetailsPipeline<>(null, TIMEOUT, null));
+    }
+    
+    private static List<String> fetch(PartialResultPolicy policy, Duration timeout, List<? extends Supplier<String>> sources) throws AuthorizationException {
+        List<String> results = new ArrayList<>();
+        new ProxiedUserDetailsPipeline<>(null, timeout, policy).fetch(sources, results::add);
+        return results;
+    }
+    
+    private static List<String> fetchRejectingSecond(PartialResultPolicy policy, List<? extends Supplier<String>> sources) throws AuthorizationException {
+        // one thread and no queue, so the second source is rejected while the first runs
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, new SynchronousQueue<>());
+        try {
+            List<String> results = new ArrayList<>();
+            new ProxiedUserDetailsPipeline<>(executor, TIMEOUT, policy).fetch(sources, results::add);
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static Supplier<String> delayed(String result, long millis) {
+        return () -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return result;
+        };
+    }
+    
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,16 +1,34 @@
 package datawave.microservice.security.util;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 import org.junit.jupiter.api.Test;
 
 import com.google.common.collect.Lists;
 
+import datawave.security.authorization.SubjectIssuerDNPair;
+import datawave.util.metrics.HotPathMetrics;
+
 public class DnUtilsTest {
     
     private DnUtils dnUtils = new DnUtils(Pattern.compile("(?:^|,)\\s*OU\\s*=\\s*My Department\\s*(?:,|$)", Pattern.CASE_INSENSITIVE),
@@ -35,6 +53,34 @@ public class DnUtilsTest {
         assertEquals(expected, actual);
     }
     
+    @Test
+    public void testAppendNormalizedProxyDN() throws IOException {
+        StringBuilder sb = new StringBuilder("key:");
+        assertEquals("key:sdn2<idn2><sdn3><idn3><sdn1><idn1>", dnUtils.appendNormalizedProxyDN(sb, "SDN1", "IDN1", "SDN2<SDN3>", "IDN2<IDN3>").toString());
+        
+        StringWriter writer = new StringWriter();
+        dnUtils.appendNormalizedProxyDN(writer, "SDN1", "IDN1", "SDN2<SDN3>", "IDN2<IDN3>");
+        assertEquals("sdn2<idn2><sdn3><idn3><sdn1><idn1>", writer.toString());
+        
+        assertArrayEquals("sdn2<idn2><sdn1><idn1>".getBytes(StandardCharsets.UTF_8), dnUtils.buildNormalizedProxyDNBytes("SDN1", "IDN1", "SDN2", "IDN2"));
+    }
+    
+    @Test
+    public void testAppendNormalizedProxyDNRestoresBuilderOnFailure() {
+        StringBuilder sb = new StringBuilder("key:");
+        assertThrows(IllegalArgumentException.class, () -> dnUtils.appendNormalizedProxyDN(sb, "SDN", "IDN", "SDN2<SDN3>", "IDN2<SDN3>"));
+        assertEquals("key:", sb.toString());
+    }
+    
+    @Test
+    public void testBuildNormalizedProxyDNFromPairs() {
+        assertEquals("", DnUtils.buildNormalizedProxyDN(Lists.newArrayList()));
+        assertEquals("sdn1<idn1><sdn2><idn2>",
+                        DnUtils.buildNormalizedProxyDN(Lists.newArrayList(SubjectIssuerDNPair.of("SDN1", "IDN1"), SubjectIssuerDNPair.of("SDN2", "IDN2"))));
+        assertEquals("key:sdn1<idn1>", DnUtils.appendNormalizedProxyDN(new StringBuilder("key:"), Lists.newArrayList(SubjectIssuerDNPair.of("SDN1", "IDN1")))
+                        .toString());
+    }
+    
     @Test
     public void testBuildNormalizedDN() {
         Collection<String> expected = Lists.newArrayList("sdn", "idn");
@@ -62,6 +108,212 @@ public class DnUtilsTest {
         assertEquals(userDnForTest, userDN);
     }
     
+    @Test
+    public void testGetUserDnSkipsServerDNs() {
+        String[] array = new String[] {"cn=server1, ou=NPE", "idn1", "cn=user, ou=people", "idn2"};
+        assertEquals("cn=user, ou=people", dnUtils.getUserDN(array, true));
+        
+        array = new String[] {"cn=server1, ou=npe", "cn=server2, ou=StillNotAPerson"};
+        assertEquals(null, dnUtils.getUserDN(array));
+    }
+    
+    @Test
+    public void testIsServerDN() {
+        assertTrue(dnUtils.isServerDN("cn=server1, ou=npe, o=test"));
+        assertTrue(dnUtils.isServerDN("CN=server1,OU=IAmNotAPerson,O=test"));
+        assertFalse(dnUtils.isServerDN("cn=user, ou=people, o=test"));
+        assertFalse(dnUtils.isServerDN("cn=npe, o=test"));
+    }
+    
+    @Test
+    public void testParseDN() {
+        String dn = "CN=Doe John jdoe, OU=People, OU=My Department, O=Test";
+        String normalized = DnUtils.normalizeDN(dn);
+        ParsedDN parsed = dnUtils.parseDN(dn);
+        assertEquals(normalized, parsed.getNormalizedDN());
+        assertEquals(DnUtils.getCommonName(normalized), parsed.getCommonName());
+        assertEquals(Arrays.asList(DnUtils.getOrganizationalUnits(normalized)), parsed.getOrganizationalUnits());
+        assertEquals(DnUtils.getShortName(normalized), parsed.getShortName());
+        assertFalse(parsed.isNPE());
+        assertSame(parsed, dnUtils.parseDN(dn));
+        
+        // every spelling of the DN shares the one parse
+        assertSame(parsed, dnUtils.parseDN(normalized));
+        assertSame(parsed, dnUtils.parseDN("cn=doe john jdoe,ou=people,ou=my department,o=test"));
+        assertSame(parsed, dnUtils.parseDN(" CN=Doe John jdoe,OU=People,   OU=My Department,O=TEST "));
+        
+        assertTrue(dnUtils.parseDN("cn=server1, ou=NPE").isNPE());
+        
+        // the parse agrees with the separate helpers, including for names that are not DNs
+        for (String other : Arrays.asList("cn=a b c, cn=second, ou=one, ou=Two, o=test", "ou=people, o=test", "O=Test,OU=People,CN=Reversed User",
+                        "cn=escaped\\, comma, ou=a\\+b", "jdoe", "", "  ", "not a dn, really")) {
+            ParsedDN p = dnUtils.parseDN(other);
+            String n = DnUtils.normalizeDN(other);
+            assertEquals(n, p.getNormalizedDN(), other);
+            assertEquals(DnUtils.getCommonName(n), p.getCommonName(), other);
+            assertEquals(Arrays.asList(DnUtils.getOrganizationalUnits(n)), p.getOrganizationalUnits(), other);
+            assertEquals(DnUtils.getShortName(n), p.getShortName(), other);
+        }
+    }
+    
+    @Test
+    public void testClassifyChain() {
+        String subjectDN = "CN=Doe John jdoe, OU=People";
+        String issuerDN = "CN=CA, OU=People";
+        String proxiedSubjectDNs = "<CN=server1, OU=npe><CN=server2, OU=People>";
+        String proxiedIssuerDNs = "<CN=CA1><CN=CA2>";
+        
+        ClassifiedChain chain = dnUtils.classifyChain(subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs);
+        Collection<String> normalizedDNs = dnUtils.buildNormalizedDNList(subjectDN, issuerDN, proxiedSubjectDNs, proxiedIssuerDNs);
+        assertEquals(normalizedDNs, chain.getNormalizedDNs());
+        assertEquals(3, chain.size());
+        assertTrue(chain.isNPE(0));
+        assertFalse(chain.isNPE(1));
+        assertFalse(chain.isNPE(2));
+        assertEquals(1, chain.getUserIndex());
+        assertEquals(dnUtils.getUserDN(normalizedDNs.toArray(new String[0]), true), chain.getUserDN());
+        assertEquals(DnUtils.getShortName(chain.getUserDN()), chain.getUserShortName());
+        assertEquals(chain.getNormalizedDNs().get(4), chain.getSubjectDN(2));
+        assertEquals(chain.getNormalizedDNs().get(5), chain.getIssuerDN(2));
+    }
+    
+    @Test
+    public void testClassifyChainWithoutUser() {
+        ClassifiedChain chain = dnUtils.classifyChain("CN=server1, OU=npe", "CN=CA", null, null);
+        assertEquals(1, chain.size());
+        assertEquals(-1, chain.getUserIndex());
+        assertEquals(null, chain.getUser());
+        assertEquals(null, chain.getUserDN());
+        
+        assertThrows(IllegalArgumentException.class, () -> dnUtils.classifyChain("SDN", "IDN", "SDN2", "SDN2"));
+    }
+    
+    @Test
+    public void testCustomNpeOuMatcher() {
+        NpeOuMatcher matcher = (text, start, end) -> text.subSequence(start, end).toString().startsWith("svc-");
+        DnUtils custom = new DnUtils(Pattern.compile("ou=my department", Pattern.CASE_INSENSITIVE), matcher);
+        assertTrue(custom.isServerDN("cn=server1, ou=svc-ingest"));
+        assertFalse(custom.isServerDN("cn=server1, ou=npe"));
+    }
+    
+    @Test
+    public void testSubjectDnCheck() {
+        assertTrue(dnUtils.isSubjectDnCheckDirect());
+        assertFalse(new DnUtils(Pattern.compile("ou=(my department|people)"), Arrays.asList("NPE")).isSubjectDnCheckDirect());
+        
+        long requests = HotPathMetrics.counter("datawave.dn.subject-check.requests").count();
+        long checks = HotPathMetrics.timer("datawave.dn.subject-check").count();
+        dnUtils.buildNormalizedDNList("SDN1", "IDN1", "SDN2<SDN3>", "IDN2<IDN3>");
+        dnUtils.buildNormalizedDNList("SDN", "IDN", null, null);
+        assertThrows(IllegalArgumentException.class, () -> dnUtils.buildNormalizedDNList("SDN", "IDN", "SDN2", "CN=foo, OU=my department"));
+        // recorded only when the hot path metrics are enabled
+        assertEquals(HotPathMetrics.ENABLED ? requests + 2 : 0, HotPathMetrics.counter("datawave.dn.subject-check.requests").count());
+        assertEquals(HotPathMetrics.ENABLED ? checks + 3 : 0, HotPathMetrics.timer("datawave.dn.subject-check").count());
+    }
+    
+    @Test
+    public void testIsServerDNCache() {
+        assertEquals(0, dnUtils.getParsedDnCacheHitCount());
+        assertEquals(0, dnUtils.getParsedDnCacheMissCount());
+        
+        assertTrue(dnUtils.isServerDN("cn=server1, ou=npe"));
+        assertFalse(dnUtils.isServerDN("cn=user, ou=people"));
+        assertTrue(dnUtils.isServerDN("cn=server1, ou=npe"));
+        assertFalse(dnUtils.isServerDN("cn=user, ou=people"));
+        assertEquals(2, dnUtils.getParsedDnCacheHitCount());
+        assertEquals(2, dnUtils.getParsedDnCacheMissCount());
+    }
+    
+    @Test
+    public void testIsServerDNWithoutCache() {
+        DnUtils uncached = new DnUtils(Pattern.compile("ou=my department", Pattern.CASE_INSENSITIVE), Arrays.asList("NPE"), 0);
+        assertTrue(uncached.isServerDN("cn=server1, ou=npe"));
+        assertTrue(uncached.isServerDN("cn=server1, ou=npe"));
+        assertEquals(0, uncached.getParsedDnCacheHitCount());
+        
+        assertThrows(IllegalArgumentException.class, () -> new DnUtils(Pattern.compile("ou=my department"), Arrays.asList("NPE"), -1));
+    }
+    
+    @Test
+    public void testDnCache() {
+        DnUtils cached = new DnUtils(Pattern.compile("ou=my department", Pattern.CASE_INSENSITIVE), Arrays.asList("NPE"), 0, 100, Duration.ofMinutes(5));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Lists.newArrayList("sdn2", "idn2", "sdn3", "idn3", "sdn1", "idn1"),
+                            cached.buildNormalizedDNList("SDN1", "IDN1", "SDN2<SDN3>", "IDN2<IDN3>"));
+            assertEquals("sdn2<idn2><sdn3><idn3><sdn1><idn1>", cached.buildNormalizedProxyDN("SDN1", "IDN1", "SDN2<SDN3>", "IDN2<IDN3>"));
+            assertEquals("sdn<idn>", cached.buildNormalizedProxyDN("SDN", "IDN", null, null));
+        }
+        assertEquals(4, cached.getProxyDnCacheHitCount());
+        assertEquals(2, cached.getProxyDnCacheMissCount());
+        // eight distinct DNs, each normalized once
+        assertEquals(8, cached.getDnCacheMissCount());
+        
+        // the same DN is escaped when it is the final subject DN, and not when it is proxied
+        assertEquals(dnUtils.buildNormalizedDNList("cn=a>b", "IDN", null, null), cached.buildNormalizedDNList("cn=a>b", "IDN", null, null));
+        assertEquals(dnUtils.buildNormalizedDNList("SDN", "IDN", "cn=a>b", "IDN2"), cached.buildNormalizedDNList("SDN", "IDN", "cn=a>b", "IDN2"));
+        
+        // failures are not cached
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalArgumentException.class, () -> cached.buildNormalizedProxyDN("SDN", "IDN", "SDN2", "SDN2"));
+        }
+        assertEquals(4, cached.getProxyDnCacheMissCount());
+    }
+    
+    @Test
+    public void testReconfigure() {
+        DnUtils reloaded = new DnUtils(Pattern.compile("ou=my department", Pattern.CASE_INSENSITIVE), Arrays.asList("NPE"), 100, 100, Duration.ofMinutes(5));
+        assertTrue(reloaded.isServerDN("cn=server1, ou=npe"));
+        assertTrue(reloaded.isServerDN("cn=server1, ou=npe"));
+        assertThrows(IllegalArgumentException.class, () -> reloaded.buildNormalizedProxyDN("SDN", "IDN", "SDN2", "CN=foo,OU=My Department"));
+        
+        reloaded.reconfigure(Pattern.compile("ou=other department", Pattern.CASE_INSENSITIVE), Arrays.asList("server"));
+        // nothing cached under the old configuration is used
+        assertFalse(reloaded.isServerDN("cn=server1, ou=npe"));
+        assertTrue(reloaded.isServerDN("cn=server1, ou=server"));
+        assertEquals("sdn2<cn=foo, ou=my department><sdn><idn>", reloaded.buildNormalizedProxyDN("SDN", "IDN", "SDN2", "CN=foo,OU=My Department"));
+        assertThrows(IllegalArgumentException.class, () -> reloaded.buildNormalizedProxyDN("SDN", "IDN", "SDN2", "CN=foo,OU=Other Department"));
+        
+        // the statistics carry over
+        assertEquals(1, reloaded.getParsedDnCacheHitCount());
+        assertEquals(3, reloaded.getParsedDnCacheMissCount());
+    }
+    
+    @Test
+    public void testReconfigureConcurrently() throws Exception {
+        DnUtils reloaded = new DnUtils(Pattern.compile("ou=my department", Pattern.CASE_INSENSITIVE), Arrays.asList("alpha"), 100, 100, Duration.ofMinutes(5));
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                readers.add(executor.submit(() -> {
+                    int calls = 0;
+                    while (!done.get()) {
+                        // exactly one of the two is an NPE under either configuration; both or neither would mean a mix of the two
+                        ClassifiedChain chain = reloaded.classifyChain("cn=s1, ou=alpha", "cn=i1", "cn=s2, ou=beta", "cn=i2");
+                        assertTrue(chain.isNPE(0) != chain.isNPE(1));
+                        assertEquals("cn=s2, ou=beta<cn=i2><cn=s1, ou=alpha><cn=i1>", reloaded.buildNormalizedProxyDN("cn=s1, ou=alpha", "cn=i1", "cn=s2, ou=beta", "cn=i2"));
+                        calls++;
+                    }
+                    return calls;
+                }));
+            }
+            for (int i = 0; i < 1000; i++) {
+                reloaded.reconfigure(Pattern.compile("ou=my department", Pattern.CASE_INSENSITIVE), Arrays.asList((i % 2 == 0) ? "beta" : "alpha"));
+            }
+            done.set(true);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        // the last configuration is in effect
+        assertTrue(reloaded.isServerDN("cn=s1, ou=alpha"));
+        assertFalse(reloaded.isServerDN("cn=s2, ou=beta"));
+    }
+    
     @Test
     public void testTest() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -0,0 +1,61 @@
+package datawave.microservice.security.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class NpeOuMatcherTest {
+    
+    private NpeOuMatcher matcher = NpeOuMatcher.compile(Arrays.asList("iamnotaperson", "NPE", "stillnotaperson", "\u00dcnpe"));
+    
+    @Test
+    public void testMatches() {
+        assertTrue(matcher.matches("npe"));
+        assertTrue(matcher.matches("NPE"));
+        assertTrue(matcher.matches("IAmNotAPerson"));
+        assertTrue(matcher.matches("\u00fcnpe"));
+        assertFalse(matcher.matches("np"));
+        assertFalse(matcher.matches("npex"));
+        assertFalse(matcher.matches("people"));
+        assertFalse(matcher.matches(""));
+    }
+    
+    @Test
+    public void testMatchesRange() {
+        String dn = "cn=server1, ou=npe, o=test";
+        assertTrue(matcher.matches(dn, 15, 18));
+        assertFalse(matcher.matches(dn, 15, 17));
+    }
+    
+    @Test
+    public void testLargeList() {
+        List<String> ous = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            ous.add("OU" + i);
+        }
+        NpeOuMatcher large = NpeOuMatcher.compile(ous);
+        for (int i = 0; i < 500; i++) {
+            assertTrue(large.matches("ou" + i));
+        }
+        assertFalse(large.matches("ou500"));
+        assertFalse(large.matches("ou"));
+    }
+    
+    @Test
+    public void testIsNPE() {
+        assertTrue(matcher.isNPE("cn=server1, ou=npe, o=test"));
+        assertTrue(matcher.isNPE("CN=server1,OU=People,OU= NPE ,O=test"));
+        assertFalse(matcher.isNPE("cn=npe, ou=people, o=test"));
+        assertFalse(matcher.isNPE("cn=server1, ou=npex"));
+        // not simple DNs, which are parsed instead of scanned
+        assertTrue(matcher.isNPE("cn=server\\, one, ou=npe"));
+        assertTrue(matcher.isNPE("cn=server1+uid=s1, ou=npe"));
+        assertFalse(matcher.isNPE("cn=server1, ou=npe, not a dn"));
+        assertFalse(matcher.isNPE(""));
+    }
+}
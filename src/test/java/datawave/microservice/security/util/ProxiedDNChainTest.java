@@ -0,0 +1,64 @@
+package datawave.microservice.security.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.Lists;
+
+public class ProxiedDNChainTest {
+    
+    @Test
+    public void testCount() {
+        assertEquals(1, ProxiedDNChain.count("cn=a"));
+        assertEquals(2, ProxiedDNChain.count("cn=a<cn=b>"));
+        assertEquals(3, ProxiedDNChain.count("<cn=a><cn=b><cn=c>"));
+        assertEquals(3, ProxiedDNChain.count("cn=a<cn=b><cn=c>"));
+    }
+    
+    @Test
+    public void testCountRejectsChainsThatAreNotCanonical() {
+        assertEquals(-1, ProxiedDNChain.count(""));
+        assertEquals(-1, ProxiedDNChain.count("<>"));
+        assertEquals(-1, ProxiedDNChain.count("<cn=a><><cn=b>"));
+        assertEquals(-1, ProxiedDNChain.count("<cn=a><cn=b"));
+        assertEquals(-1, ProxiedDNChain.count("<cn=a>cn=b"));
+        assertEquals(-1, ProxiedDNChain.count("<cn=a> <cn=b>"));
+        assertEquals(-1, ProxiedDNChain.count("<cn=a>< cn=b>"));
+        assertEquals(-1, ProxiedDNChain.count("<cn=a\\<b><cn=c>"));
+        assertEquals(-1, ProxiedDNChain.count("cn=a>b"));
+    }
+    
+    @Test
+    public void testWalk() {
+        assertEquals(Lists.newArrayList("cn=a"), walk("cn=a"));
+        assertEquals(Lists.newArrayList("cn=a", "cn=b", "cn=c"), walk("cn=a<cn=b><cn=c>"));
+        assertEquals(Lists.newArrayList("cn=a", "cn=b", "cn=c"), walk("<cn=a><cn=b><cn=c>"));
+    }
+    
+    @Test
+    public void testEscape() {
+        String dn = "cn=a, ou=b";
+        assertSame(dn, ProxiedDNChain.escape(dn));
+        assertEquals("cn=a\\<b\\>", ProxiedDNChain.escape("cn=a<b>"));
+        assertEquals("\\<cn=a\\<b\\>", ProxiedDNChain.escape("<cn=a\\<b>"));
+        // only the preceding character is checked, the same as the regular expression
+        assertEquals("cn=a\\\\<", ProxiedDNChain.escape("cn=a\\\\<"));
+    }
+    
+    private List<String> walk(String chain) {
+        List<String> dns = new ArrayList<>();
+        int start = ProxiedDNChain.firstStart(chain);
+        while (start < chain.length()) {
+            int end = ProxiedDNChain.end(chain, start);
+            dns.add(chain.substring(start, end));
+            start = ProxiedDNChain.nextStart(chain, end);
+        }
+        assertEquals(ProxiedDNChain.count(chain), dns.size());
+        return dns;
+    }
+}
@@ -0,0 +1,52 @@
+package datawave.microservice.security.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+public class SubjectDnMatcherTest {
+    
+    private static final String[] DNS = {"cn=foo, ou=my department", "CN=foo,OU = My Department ,O=test", "ou=my department\n", "ou=my department\u2028",
+                    "cn=foo, ou=my departments", "cn=foo, ou=department", "cn=foo,ou=my department2", "ou=My Department", "", "cn=foo"};
+    
+    @Test
+    public void testComponentPattern() {
+        assertSameAsRegex(Pattern.compile("(?:^|,)\\s*OU\\s*=\\s*My Department\\s*(?:,|$)", Pattern.CASE_INSENSITIVE), true);
+        assertSameAsRegex(Pattern.compile("(?:^|,)\\s*OU\\s*=\\s*My Department\\s*(?:,|$)"), true);
+        assertSameAsRegex(Pattern.compile("(?i)(^|,)\\s*ou\\s*=\\s*my department\\s*(,|$)"), true);
+    }
+    
+    @Test
+    public void testLiteralPattern() {
+        assertSameAsRegex(Pattern.compile("ou=my department"), true);
+        assertSameAsRegex(Pattern.compile("OU=My Department", Pattern.CASE_INSENSITIVE), true);
+        assertSameAsRegex(Pattern.compile("ou=my.department", Pattern.LITERAL), true);
+    }
+    
+    @Test
+    public void testComplexPatternFallsBack() {
+        assertSameAsRegex(Pattern.compile("ou=(my department|people)"), false);
+        assertSameAsRegex(Pattern.compile("ou=my.department"), false);
+        assertSameAsRegex(Pattern.compile("(?:^|,)\\s*OU\\s*=\\s*My Department\\s*(?:,|$)", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE), false);
+        assertSameAsRegex(Pattern.compile("(?:^|,)\\s*OU\\s*=\\s*My Department\\s*(?:,|$)", Pattern.MULTILINE), false);
+    }
+    
+    private void assertSameAsRegex(Pattern pattern, boolean direct) {
+        SubjectDnMatcher matcher = SubjectDnMatcher.compile(pattern);
+        assertEquals(direct, matcher.isDirectScan(), pattern.pattern());
+        for (String dn : DNS) {
+            assertEquals(pattern.matcher(dn).find(), matcher.find(dn), pattern.pattern() + " " + dn);
+        }
+    }
+    
+    @Test
+    public void testFind() {
+        SubjectDnMatcher matcher = SubjectDnMatcher.compile(Pattern.compile("(?:^|,)\\s*OU\\s*=\\s*My Department\\s*(?:,|$)", Pattern.CASE_INSENSITIVE));
+        assertTrue(matcher.find("cn=foo, ou=my department, o=test"));
+        assertFalse(matcher.find("cn=foo, ou=my department team, o=test"));
+    }
+}
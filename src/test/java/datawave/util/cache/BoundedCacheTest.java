@@ -0,0 +1,167 @@
+package datawave.util.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Ticker;
+
+public class BoundedCacheTest {
+    
+    @Test
+    public void testGetAndPut() {
+        BoundedCache<String,String> cache = BoundedCache.builder().maximumSize(100).build();
+        assertNull(cache.getIfPresent("a"));
+        cache.put("a", "1");
+        assertEquals("1", cache.getIfPresent("a"));
+        cache.put("a", "2");
+        assertEquals("2", cache.getIfPresent("a"));
+        assertEquals(1, cache.size());
+        
+        cache.invalidate("a");
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(0, cache.size());
+        
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(0.5, stats.hitRate(), 0.0);
+        assertEquals(0, stats.evictionCount());
+    }
+    
+    @Test
+    public void testLoader() {
+        BoundedCache<String,Integer> cache = BoundedCache.builder().maximumSize(100).build();
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Integer.valueOf(1), cache.get("a", key -> loads.incrementAndGet()));
+        }
+        assertEquals(1, loads.get());
+        assertThrows(NullPointerException.class, () -> cache.get("b", key -> null));
+    }
+    
+    @Test
+    public void testMaximumSize() {
+        BoundedCache<Integer,Integer> cache = BoundedCache.builder().maximumSize(100).build();
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(900, cache.stats().evictionCount());
+        
+        BoundedCache<Integer,Integer> empty = BoundedCache.builder().maximumSize(0).build();
+        empty.put(1, 1);
+        assertNull(empty.getIfPresent(1));
+        
+        assertThrows(IllegalArgumentException.class, () -> BoundedCache.builder().maximumSize(-1));
+        assertThrows(IllegalStateException.class, () -> BoundedCache.builder().build());
+    }
+    
+    @Test
+    public void testFrequentKeysSurviveScan() {
+        BoundedCache<Integer,Integer> cache = BoundedCache.builder().maximumSize(100).concurrencyLevel(1).build();
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, i);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 50; i++) {
+                assertEquals(Integer.valueOf(i), cache.getIfPresent(i));
+            }
+        }
+        
+        // a scan of keys that are seen once each does not displace the ones that are looked up all the time
+        for (int i = 1000; i < 2000; i++) {
+            if (cache.getIfPresent(i) == null) {
+                cache.put(i, i);
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Integer.valueOf(i), cache.getIfPresent(i));
+        }
+        assertTrue(cache.size() <= 100);
+    }
+    
+    @Test
+    public void testExpireAfterWrite() {
+        AtomicLong nanos = new AtomicLong();
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+        BoundedCache<String,String> cache = BoundedCache.builder().maximumSize(100).expireAfterWrite(Duration.ofMinutes(1)).ticker(ticker).build();
+        cache.put("a", "1");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertEquals("1", cache.getIfPresent("a"));
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(cache.getIfPresent("a"));
+        
+        // writing the entry again restarts its time to live
+        cache.put("a", "2");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertEquals("2", cache.getIfPresent("a"));
+        
+        assertThrows(IllegalArgumentException.class, () -> BoundedCache.builder().expireAfterWrite(Duration.ofSeconds(-1)));
+    }
+    
+    @Test
+    public void testInvalidateAll() {
+        BoundedCache<Integer,Integer> cache = BoundedCache.builder().maximumSize(1000).build();
+        for (int i = 0; i < 500; i++) {
+            cache.put(i, i);
+        }
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        for (int i = 0; i < 2000; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(1000, cache.size());
+    }
+    
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        BoundedCache<Integer,Integer> cache = BoundedCache.builder().maximumSize(500).build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        int key = (i * 31 + seed) % 2000;
+                        Integer value = cache.getIfPresent(key);
+                        if (value == null) {
+                            cache.put(key, key);
+                        } else {
+                            assertEquals(key, value.intValue());
+                        }
+                        if (i % 1000 == 0) {
+                            cache.invalidate(key);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(cache.size() <= 500);
+        assertEquals(160000, cache.stats().requestCount());
+    }
+}
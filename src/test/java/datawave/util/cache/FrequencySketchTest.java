@@ -0,0 +1,61 @@
+package datawave.util.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class FrequencySketchTest {
+    
+    @Test
+    public void testFrequency() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        assertEquals(0, sketch.frequency(42));
+        for (int i = 0; i < 5; i++) {
+            sketch.increment(42);
+        }
+        assertEquals(5, sketch.frequency(42));
+        
+        // counters saturate
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(7);
+        }
+        assertEquals(15, sketch.frequency(7));
+    }
+    
+    @Test
+    public void testAging() {
+        FrequencySketch sketch = new FrequencySketch(8);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment(42);
+        }
+        // enough other keys to reach the sample size halves every counter
+        for (int i = 0; i < 200; i++) {
+            sketch.increment(i * 0x9e3779b9);
+        }
+        assertTrue(sketch.frequency(42) < 10);
+    }
+    
+    @Test
+    public void testGrowth() {
+        FrequencySketch sketch = new FrequencySketch(1 << 20);
+        assertEquals(1024, sketch.tableSize());
+        for (int i = 0; i < 5; i++) {
+            sketch.increment(42);
+        }
+        sketch.ensureCapacity(1000);
+        assertEquals(1024, sketch.tableSize());
+        
+        // growing keeps the counts
+        sketch.ensureCapacity(5000);
+        assertEquals(8192, sketch.tableSize());
+        assertEquals(5, sketch.frequency(42));
+        
+        sketch.ensureCapacity(Integer.MAX_VALUE);
+        assertEquals(1 << 20, sketch.tableSize());
+        assertEquals(5, sketch.frequency(42));
+        
+        // a small table is allocated at full size
+        assertEquals(128, new FrequencySketch(100).tableSize());
+    }
+}
@@ -0,0 +1,124 @@
+package datawave.util.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class MetricRegistryTest {
+    
+    @Test
+    public void testCounter() {
+        MetricRegistry registry = new MetricRegistry();
+        Counter counter = registry.counter("datawave.test.counter");
+        counter.increment();
+        counter.increment(4);
+        assertEquals(5, counter.count());
+        assertSame(counter, registry.counter("datawave.test.counter"));
+    }
+    
+    @Test
+    public void testTimer() {
+        MetricRegistry registry = new MetricRegistry();
+        Timer timer = registry.timer("datawave.test.timer");
+        timer.stop(timer.start());
+        timer.stopFailed(timer.start());
+        timer.record(3, TimeUnit.MILLISECONDS);
+        assertEquals(3, timer.count());
+        assertEquals(1, timer.failureCount());
+        assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) >= 3.0);
+        assertEquals(3.0, timer.max(TimeUnit.MILLISECONDS), 1.0);
+        assertEquals(3, timer.getLatencyHistogram().count());
+    }
+    
+    @Test
+    public void testHistogramBuckets() {
+        Histogram histogram = new MetricRegistry().histogram("datawave.test.histogram");
+        long[] values = {0, 1, 2, 3, 4, 7, 8, 1000, Long.MAX_VALUE};
+        for (long value : values) {
+            histogram.record(value);
+        }
+        assertEquals(values.length, histogram.count());
+        assertEquals(Long.MAX_VALUE, histogram.max());
+        assertEquals(1, histogram.getBucketCount(0));
+        assertEquals(1, histogram.getBucketCount(1));
+        assertEquals(2, histogram.getBucketCount(2));
+        assertEquals(2, histogram.getBucketCount(3));
+        assertEquals(1, histogram.getBucketCount(4));
+        assertEquals(1, histogram.getBucketCount(10));
+        assertEquals(1, histogram.getBucketCount(Histogram.BUCKETS - 1));
+        
+        // every value falls into the first bucket whose upper bound is at least the value
+        for (long value : values) {
+            int bucket = Histogram.bucket(value);
+            assertTrue(value <= Histogram.getBucketUpperBound(bucket));
+            assertTrue(bucket == 0 || value > Histogram.getBucketUpperBound(bucket - 1));
+        }
+    }
+    
+    @Test
+    public void testDisabledRegistry() {
+        MetricRegistry registry = new MetricRegistry(false);
+        assertFalse(registry.isEnabled());
+        Counter counter = registry.counter("datawave.test.counter");
+        Timer timer = registry.timer("datawave.test.timer");
+        Histogram histogram = registry.histogram("datawave.test.histogram");
+        counter.increment();
+        timer.stopFailed(timer.start());
+        histogram.record(10);
+        assertEquals(0, counter.count());
+        assertEquals(0, timer.start());
+        assertEquals(0, timer.count());
+        assertEquals(0, timer.failureCount());
+        assertEquals(0, histogram.count());
+        assertEquals(0, registry.size());
+    }
+    
+    @Test
+    public void testNameConflicts() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.counter("datawave.test.meter");
+        assertThrows(IllegalArgumentException.class, () -> registry.timer("datawave.test.meter"));
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram(""));
+    }
+    
+    @Test
+    public void testVisitor() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.timer("datawave.test.b");
+        registry.counter("datawave.test.c");
+        registry.histogram("datawave.test.a");
+        List<String> visited = new ArrayList<>();
+        registry.accept(new MetricVisitor() {
+            @Override
+            public void visitCounter(Counter counter) {
+                visited.add("counter " + counter.getName());
+            }
+            
+            @Override
+            public void visitTimer(Timer timer) {
+                visited.add("timer " + timer.getName());
+            }
+            
+            @Override
+            public void visitHistogram(Histogram histogram) {
+                visited.add("histogram " + histogram.getName());
+            }
+        });
+        assertEquals(List.of("histogram datawave.test.a", "timer datawave.test.b", "counter datawave.test.c"), visited);
+    }
+    
+    @Test
+    public void testHotPathRegistry() {
+        assertEquals(Boolean.getBoolean(HotPathMetrics.ENABLED_PROPERTY), HotPathMetrics.ENABLED);
+        assertEquals(HotPathMetrics.ENABLED, HotPathMetrics.registry().isEnabled());
+        assertSame(HotPathMetrics.timer("datawave.dn.normalize"), HotPathMetrics.registry().timer("datawave.dn.normalize"));
+    }
+}
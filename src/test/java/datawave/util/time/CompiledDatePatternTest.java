@@ -0,0 +1,109 @@
+package datawave.util.time;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.jupiter.api.Test;
+
+public class CompiledDatePatternTest {
+    
+    @Test
+    public void testCompiledLayouts() {
+        assertTrue(CompiledDatePattern.compile("yyyyMMddHHmm").hasFastParser());
+        assertTrue(CompiledDatePattern.compile("yyyyDDD").hasFastParser());
+        assertTrue(CompiledDatePattern.compile("yyyy-MM-dd'T'HH:mm:ss.SSS").hasFastParser());
+        assertTrue(CompiledDatePattern.compile("yyyyMMdd''HH").hasFastParser());
+        
+        // no date, so the formatter has to resolve it (and fails to)
+        assertFalse(CompiledDatePattern.compile("HHmmss").hasFastParser());
+        assertTrue(CompiledDatePattern.compile("HHmmss").hasFastFormatter());
+        // minutes without an hour are ignored by the formatter when resolving a date
+        assertFalse(CompiledDatePattern.compile("yyyyMMddmm").hasFastParser());
+        // a digit literal following the year is read as part of the year by the formatter
+        assertFalse(CompiledDatePattern.compile("yyyy'1'MMdd").hasFastParser());
+        
+        // textual, variable width and optional fields are left to the formatter
+        assertFalse(CompiledDatePattern.compile("yyyyMMMdd").hasFastFormatter());
+        assertFalse(CompiledDatePattern.compile("yyMMdd").hasFastFormatter());
+        assertFalse(CompiledDatePattern.compile("yyyy-MM-dd[ HH]").hasFastFormatter());
+    }
+    
+    @Test
+    public void testCompileIsCached() {
+        assertSame(CompiledDatePattern.compile("yyyyMMddHHmm"), CompiledDatePattern.compile("yyyyMMddHHmm"));
+    }
+    
+    @Test
+    public void testInvalidPattern() {
+        assertThrows(IllegalArgumentException.class, () -> CompiledDatePattern.compile("yyyyMMddd"));
+    }
+    
+    @Test
+    public void testParseMatchesFormatter() {
+        testParse("201502031230", "yyyyMMddHHmm", true);
+        testParse("2015-02-03 12:30:59.123", "yyyy-MM-dd HH:mm:ss.SSS", true);
+        testParse("2015-02-03 12:30:59.1", "yyyy-MM-dd HH:mm:ss.S", true);
+        testParse("20150203123059123456", "yyyyMMddHHmmssSSSSSS", true);
+        testParse("2016366", "yyyyDDD", false);
+        testParse("2016060 23", "yyyyDDD HH", true);
+        testParse("03/02/2015", "dd/MM/yyyy", false);
+        // the smart resolver clamps the day of month and rolls 24:00 to the next day
+        testParse("20150231", "yyyyMMdd", false);
+        testParse("2015123124", "yyyyMMddHH", true);
+    }
+    
+    @Test
+    public void testParseIgnoresTrailingCharacters() {
+        CompiledDatePattern compiled = CompiledDatePattern.compile("yyyyMMddHHmm");
+        assertEquals(compiled.parse("201502031230"), compiled.parse("201502031230_1"));
+    }
+    
+    @Test
+    public void testParseFailures() {
+        CompiledDatePattern compiled = CompiledDatePattern.compile("yyyy-MM-dd HH:mm");
+        assertEquals(DateHelper.PARSE_FAILURE, compiled.parse(null));
+        assertEquals(DateHelper.PARSE_FAILURE, compiled.parse(""));
+        assertEquals(DateHelper.PARSE_FAILURE, compiled.parse("2015-02-03 12:3"));
+        assertEquals(DateHelper.PARSE_FAILURE, compiled.parse("2015-02-03T12:30"));
+        assertEquals(DateHelper.PARSE_FAILURE, compiled.parse("2015-13-03 12:30"));
+        assertEquals(DateHelper.PARSE_FAILURE, compiled.parse("2015-02-32 12:30"));
+        assertEquals(DateHelper.PARSE_FAILURE, compiled.parse("2015-02-03 24:01"));
+        assertEquals(DateHelper.PARSE_FAILURE, compiled.parse("0000-02-03 12:30"));
+        assertEquals(DateHelper.PARSE_FAILURE, CompiledDatePattern.compile("yyyyDDD").parse("2015366"));
+        assertEquals(DateHelper.PARSE_FAILURE, CompiledDatePattern.compile("yyyyMMddHHmmssSSSS").parse("201502032400000001"));
+    }
+    
+    @Test
+    public void testFormatMatchesFormatter() {
+        long[] times = {0L, -1L, 1423009859123L, 951868800000L, -62135596800000L, 253402300799999L, 253402300800000L, -62135596800001L};
+        String[] patterns = {"yyyyMMddHHmmss.SSS", "yyyyDDD", "yyyy-MM-dd'T'HH:mm:ss'Z'", "HHmmss", "yyyyMMddHHmmssSSSSSS", "dd/MM/yyyy S", "yyyyMMMdd"};
+        for (String pattern : patterns) {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC);
+            CompiledDatePattern compiled = CompiledDatePattern.compile(pattern);
+            for (long time : times) {
+                String expected = formatter.format(Instant.ofEpochMilli(time));
+                assertEquals(expected, compiled.format(time), pattern);
+                assertEquals(expected, DateHelper.formatCustom(time, pattern), pattern);
+                assertEquals("x" + expected, compiled.formatTo(time, new StringBuilder("x")).toString(), pattern);
+            }
+        }
+    }
+    
+    private void testParse(String date, String pattern, boolean hasTime) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC);
+        long expected = hasTime ? ZonedDateTime.parse(date, formatter).toInstant().toEpochMilli()
+                        : LocalDate.parse(date, formatter).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        CompiledDatePattern compiled = CompiledDatePattern.compile(pattern);
+        assertTrue(compiled.hasFastParser(), pattern);
+        assertEquals(expected, compiled.parse(date), date);
+    }
+}
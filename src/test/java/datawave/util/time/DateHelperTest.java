@@ -158,6 +158,87 @@ public class DateHelperTest {
         testCustomParse(date, pattern);
     }
     
+    @Test
+    public void testDetectAndParse() {
+        assertEquals(DateHelper.parse("20130201"), DateHelper.detectAndParse("20130201"));
+        assertEquals(DateHelper.parse("20130201_1"), DateHelper.detectAndParse("20130201_1"));
+        assertEquals(DateHelper.parseHour("2013020112"), DateHelper.detectAndParse("2013020112"));
+        assertEquals(DateHelper.parseTimeExactToSeconds("20130201120102"), DateHelper.detectAndParse("20130201120102"));
+        assertEquals(DateHelper.parseRemove("20130201120102.123"), DateHelper.detectAndParse("20130201120102.123"));
+        assertEquals(DateHelper.parse8601("2013-02-01T12:01:02"), DateHelper.detectAndParse("2013-02-01T12:01:02"));
+        assertEquals(DateHelper.parse8601("2013-02-01T12:01:02.123Z"), DateHelper.detectAndParse("2013-02-01T12:01:02.123Z"));
+    }
+    
+    @Test
+    public void testDetectAndParseExtraDigits() {
+        // extra digits are ignored, as the lenient parse methods ignore them
+        assertEquals(DateHelper.parse("201302011"), DateHelper.detectAndParse("201302011"));
+        assertEquals(DateHelper.parseHour("20130201121"), DateHelper.detectAndParse("20130201121"));
+        assertEquals(DateHelper.parseHour("201302011201"), DateHelper.detectAndParse("201302011201"));
+        assertEquals(DateHelper.parseHour("2013020112010"), DateHelper.detectAndParse("2013020112010"));
+        assertEquals(DateHelper.parseTimeExactToSeconds("201302011201021"), DateHelper.detectAndParse("201302011201021"));
+        assertEquals(DateHelper.parseTimeExactToSeconds("20130201120102123"), DateHelper.detectAndParse("20130201120102123"));
+        assertEquals(DateHelper.parseTimeExactToSeconds("201302011201021.123"), DateHelper.detectAndParse("201302011201021.123"));
+        assertEquals(DateHelper.parse("20130201"), DateHelper.detectAndParse("201302011"));
+        assertEquals(DateHelper.parseHour("2013020112"), DateHelper.detectAndParse("2013020112010"));
+    }
+    
+    @Test
+    public void testDetectAndParseFollowsResolverRules() {
+        // day of month is clamped to the end of the month, and hour 24 rolls over to the next day
+        assertEquals(DateHelper.parse("20150228"), DateHelper.detectAndParse("20150231"));
+        assertEquals(DateHelper.parse("20160229"), DateHelper.detectAndParse("20160230"));
+        assertEquals(DateHelper.parseHour("2015010200"), DateHelper.detectAndParse("2015010124"));
+        assertEquals(DateHelper.parse8601("2015-01-02T00:00:00"), DateHelper.detectAndParse("2015-01-01T24:00:00"));
+    }
+    
+    @Test
+    public void testDetectAndParseFailures() {
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryDetectAndParse(null));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryDetectAndParse(""));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryDetectAndParse("2013020"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryDetectAndParse("20130"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryDetectAndParse("201313011"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryDetectAndParse("20131301"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryDetectAndParse("00000101"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryDetectAndParse("2013020125"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryDetectAndParse("2014-01-07'T'12:01:01'Z'"));
+        
+        assertThrows(DateTimeParseException.class, () -> DateHelper.detectAndParse("201313011"));
+        assertThrows(DateTimeParseException.class, () -> DateHelper.detectAndParse("20131301121"));
+        assertThrows(DateTimeParseException.class, () -> DateHelper.detectAndParse("20131301"));
+        assertThrows(DateTimeParseException.class, () -> DateHelper.detectAndParse("2014-01-07'T'12:01:01'Z'"));
+    }
+    
+    @Test
+    public void testTryParseMatchesParse() {
+        assertEquals(DateHelper.parse("20130201_1").getTime(), DateHelper.tryParse("20130201_1"));
+        assertEquals(DateHelper.parseHour("2015012703").getTime(), DateHelper.tryParseHour("2015012703"));
+        assertEquals(DateHelper.parseTimeExactToSeconds("20130201010101_1").getTime(), DateHelper.tryParseTimeExactToSeconds("20130201010101_1"));
+        assertEquals(DateHelper.parseRemove("20130201010101.123").getTime(), DateHelper.tryParseRemove("20130201010101.123"));
+        assertEquals(DateHelper.parse8601("2014-01-07T12:01:01.123Z").getTime(), DateHelper.tryParse8601("2014-01-07T12:01:01.123Z"));
+        assertEquals(DateHelper.parse8601("+12345-01-07T12:01:01").getTime(), DateHelper.tryParse8601("+12345-01-07T12:01:01"));
+        assertEquals(DateHelper.parseCustom("20091231 000001_11", "yyyyMMdd HHmmss").getTime(), DateHelper.tryParseCustom("20091231 000001_11", "yyyyMMdd HHmmss"));
+        assertEquals(DateHelper.parseCustom("202311", "yyyyDDD").getTime(), DateHelper.tryParseCustom("202311", "yyyyDDD"));
+    }
+    
+    @Test
+    public void testTryParseFailures() {
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryParse(null));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryParse("2013020_1"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryParseHour("2015012725"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryParseTimeExactToSeconds("20150127235960"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryParseRemove("20150127235959"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryParse8601("2014-01-07'T'12:01:01'Z'"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryParse8601("12345-01-07T12:01:01"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryParseCustom("2023-13-01", "yyyy-MM-dd"));
+        assertEquals(DateHelper.PARSE_FAILURE, DateHelper.tryParseCustom("20231", "yyyyDDD"));
+        
+        assertThrows(DateTimeParseException.class, () -> DateHelper.parseHour("2015012725"));
+        assertThrows(DateTimeParseException.class, () -> DateHelper.parseCustom("2023-13-01", "yyyy-MM-dd"));
+        assertThrows(IllegalArgumentException.class, () -> DateHelper.tryParseCustom("20230101", "yyyyMMddb"));
+    }
+    
     private void testCustomParse(String date, String pattern) throws ParseException {
         AtomicLong actual = new AtomicLong(Long.MIN_VALUE);
         assertDoesNotThrow((() -> actual.set(DateHelper.parseCustom(date, pattern).getTime())));